@@ -0,0 +1,297 @@
+package com.firebirdcss.tool.duplicate_file_locator.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.firebirdcss.tool.duplicate_file_locator.ApplicationMain;
+import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
+
+/**
+ * This class is the Scan Benchmark.
+ * It is a tool for telling whether a change makes scans faster or slower. A synthetic tree is
+ * generated by the {@link TreeGenerator} and then scanned a number of times, each time by a
+ * fresh JVM running the {@link ApplicationMain} without prompting. The statistics reported by
+ * each scan are added as a row to a CSV results file, so that runs of different versions,
+ * options or trees can be compared side by side.
+ * <p>
+ * Everything runs on the local machine. The first run of a tree may be slower than the rest,
+ * as files which were just written or scanned are likely still cached by the operating system.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class ScanBenchmark {
+    private static final String RESULTS_HEADER = "timestamp,label,tree,run,scan_options,elapsed_ms,process_ms,bytes_hashed,files_hashed,peak_heap_bytes_upper_bound,duplicate_groups,wasted_bytes";
+    private static final String[] STATISTICS = {"Elapsed milliseconds", "Bytes hashed", "Files hashed", "Peak heap bytes (upper bound)", "Duplicate groups", "Wasted bytes"};
+    
+    private static final TreeGenerator generator = new TreeGenerator();
+    private static Path treeRoot = Path.of(System.getProperty("java.io.tmpdir"), "dfl-benchmark");
+    private static String resultsFile = "benchmark-results.csv";
+    private static String label = "";
+    private static int runs = 3;
+    private static final List<String> jvmOptions = new ArrayList<>();
+    private static final List<String> scanOptions = new ArrayList<>();
+    
+    /**
+     * MAIN METHOD:
+     * This is the main method and entry point for the start of the benchmark's runtime.
+     * 
+     * @param args - The arguments passed into the benchmark as a {@link String} array
+     */
+    public static void main(String[] args) {
+        processArgs(args);
+        
+        try { // Try to prepare the tree...
+            long start = System.nanoTime();
+            if (generator.generate(treeRoot)) { // Tree was created...
+                System.out.println("Generated tree in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms: " + treeRoot);
+            } else { // Tree was reused...
+                System.out.println("Reusing tree: " + treeRoot);
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: Unable to generate the tree; " + e.getMessage());
+            
+            System.exit(1);
+        }
+        
+        String tree = generator.describe();
+        String options = String.join(" ", scanOptions);
+        System.out.println("Tree: " + tree);
+        System.out.println("Scan options: " + (options.isEmpty() ? "None" : options));
+        
+        boolean newFile = !new File(resultsFile).exists();
+        try (PrintWriter out = new PrintWriter(new FileWriter(resultsFile, StandardCharsets.UTF_8, true));) {
+            if (newFile) { // Results file needs its header...
+                out.println(RESULTS_HEADER);
+            }
+            
+            for (int run = 1; run <= runs; run++) {
+                long start = System.nanoTime();
+                Map<String, String> stats = runScan();
+                long processMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                
+                System.out.println("Run " + run + " of " + runs + ": " + stats.get("Elapsed milliseconds") + " ms, " +
+                    Utilities.humanReadableSize(Long.parseLong(stats.get("Bytes hashed"))) + " in " + stats.get("Files hashed") + " files, peak heap at most " +
+                    Utilities.humanReadableSize(Long.parseLong(stats.get("Peak heap bytes (upper bound)"))));
+                
+                StringBuilder row = new StringBuilder();
+                row.append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append(',')
+                    .append(csv(label)).append(',')
+                    .append(csv(tree)).append(',')
+                    .append(run).append(',')
+                    .append(csv(options)).append(',')
+                    .append(stats.get("Elapsed milliseconds")).append(',')
+                    .append(processMillis);
+                for (int i = 1; i < STATISTICS.length; i++) {
+                    row.append(',').append(stats.get(STATISTICS[i]));
+                }
+                out.println(row);
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: " + e.getMessage());
+            
+            System.exit(1);
+        }
+        
+        System.out.println("Results added to: " + new File(resultsFile).getAbsolutePath());
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Scans the tree in a new JVM and returns the statistics it reported.
+     * 
+     * @return Returns a {@link Map} of statistic name to value as {@link String}s
+     * 
+     * @throws IOException Indicates the scan could not be run or did not report its statistics.
+     */
+    private static Map<String, String> runScan() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ApplicationMain.class.getName());
+        command.add("--non-interactive");
+        command.add("-s");
+        command.add(treeRoot.toString());
+        command.addAll(scanOptions);
+        
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        process.getOutputStream().close(); // <-- Nothing is ever typed into the scan...
+        
+        Map<String, String> stats = new HashMap<>();
+        List<String> lastLines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));) {
+            String line;
+            while ((line = in.readLine()) != null) { // Read all output so the scan never blocks on it...
+                for (String name : STATISTICS) {
+                    if (line.startsWith(name + ": ")) {
+                        stats.put(name, line.substring(name.length() + 2).trim());
+                    }
+                }
+                lastLines.add(line);
+                if (lastLines.size() > 20) {
+                    lastLines.remove(0);
+                }
+            }
+        }
+        
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        
+        if (stats.size() != STATISTICS.length) { // Scan failed before reporting...
+            
+            throw new IOException("The scan did not report its statistics; Last output:\n\t" + String.join("\n\t", lastLines));
+        }
+        
+        return stats;
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Quotes the given value for a CSV file.
+     * 
+     * @param value - The value as {@link String}
+     * 
+     * @return Returns the quoted value as {@link String}
+     */
+    private static String csv(String value) {
+        
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method processes the benchmark's arguments, all arguments after <code>--</code>
+     * are passed to each scan.
+     * 
+     * @param args - The arguments as an array of {@link String}.
+     */
+    private static void processArgs(String[] args) {
+        try {
+            for (int i = 0; i < args.length; i++) { // Iterate though arguments...
+                switch (args[i].toLowerCase()) { // Handle current lower-cased argument...
+                    case "--tree":
+                        treeRoot = Path.of(args[++i]).toAbsolutePath();
+                        break;
+                    case "--seed":
+                        generator.seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--depth":
+                        generator.depth = Integer.parseInt(args[++i]);
+                        break;
+                    case "--fan-out":
+                        generator.fanOut = Integer.parseInt(args[++i]);
+                        break;
+                    case "--files":
+                        generator.filesPerDirectory = Integer.parseInt(args[++i]);
+                        break;
+                    case "--min-size":
+                        generator.minFileSize = Utilities.parseSize(args[++i]);
+                        break;
+                    case "--max-size":
+                        generator.maxFileSize = Utilities.parseSize(args[++i]);
+                        break;
+                    case "--duplicate-ratio":
+                        generator.duplicateRatio = Double.parseDouble(args[++i]);
+                        break;
+                    case "--hardlink-ratio":
+                        generator.hardlinkRatio = Double.parseDouble(args[++i]);
+                        break;
+                    case "--symlink-ratio":
+                        generator.symlinkRatio = Double.parseDouble(args[++i]);
+                        break;
+                    case "--runs":
+                        runs = Integer.parseInt(args[++i]);
+                        break;
+                    case "--results":
+                        resultsFile = args[++i];
+                        break;
+                    case "--label":
+                        label = args[++i];
+                        break;
+                    case "--jvm-option":
+                        jvmOptions.add(args[++i]);
+                        break;
+                    case "--":
+                        for (i++; i < args.length; i++) {
+                            scanOptions.add(args[i]);
+                        }
+                        break;
+                    case "-?":
+                    case "-h":
+                    case "--help":
+                        showHelp(); // <-- Application exit happens in here.
+                        break;
+                    default:
+                        System.out.println("ERROR: Missing or invalid argument(s) given!\n\n");
+                        showHelp(); // <-- Application exit happens in here.
+                        break;
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("ERROR: " + e.getMessage() + "\n\n");
+            showHelp();
+        }
+        
+        if (generator.depth < 0 || generator.fanOut < 0 || generator.filesPerDirectory < 0 || runs <= 0 ||
+            generator.minFileSize < 0 || generator.maxFileSize < generator.minFileSize ||
+            generator.duplicateRatio < 0 || generator.hardlinkRatio < 0 || generator.symlinkRatio < 0 ||
+            generator.duplicateRatio + generator.hardlinkRatio > 1.0) { // Settings make no sense...
+            System.out.println("ERROR: The tree settings or number of runs are out of range!\n\n");
+            showHelp();
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method displays the help message and then exits.
+     */
+    private static void showHelp() {
+        String message =
+            "Usage: gradlew benchmark --args=\"[-options] [-- <scan options>]\"\n" +
+            "   or: java -cp <classpath> " + ScanBenchmark.class.getName() + " [-options] [-- <scan options>]\n" +
+            "where options include:\n" +
+            "    --tree <dir>              Directory of the generated tree (default <tmp>/dfl-benchmark).\n" +
+            "        An existing directory is only replaced if it was generated by the benchmark.\n" +
+            "    --seed <n>                Seed from which the tree is generated (default 1).\n" +
+            "    --depth <n>               Levels of directories below the root (default 3).\n" +
+            "    --fan-out <n>             Sub-directories of each directory (default 4).\n" +
+            "    --files <n>               Files in each directory (default 50).\n" +
+            "    --min-size <size>         Smallest unique file, such as 0 (default 0).\n" +
+            "    --max-size <size>         Largest unique file, such as 1M (default 1M).\n" +
+            "    --duplicate-ratio <r>     Fraction of files which are copies (default 0.2).\n" +
+            "    --hardlink-ratio <r>      Fraction of files which are hard links (default 0.02).\n" +
+            "    --symlink-ratio <r>       Symbolic links to add per file (default 0.01).\n" +
+            "    --runs <n>                Number of times to scan the tree (default 3).\n" +
+            "    --results <file>          CSV file to add the results to (default benchmark-results.csv).\n" +
+            "    --label <text>            Label for the results, such as a version.\n" +
+            "    --jvm-option <option>     Option for the JVM running each scan, such as -Xmx512m.\n" +
+            "    -? -h --help              Prints this help message\n" +
+            "Scan options after -- are passed to every scan, such as: -- -o 4 --two-pass\n\n"
+        ;
+        System.out.println(message);
+        
+        System.exit(0);
+    }
+}
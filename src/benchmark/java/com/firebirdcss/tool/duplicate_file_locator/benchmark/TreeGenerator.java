@@ -0,0 +1,278 @@
+package com.firebirdcss.tool.duplicate_file_locator.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This class is the Tree Generator.
+ * It creates a synthetic directory tree for measuring scans, made up of unique files, copies
+ * of those files, hard links to them and symbolic links to files and directories. The tree is
+ * entirely determined by its settings, so the same settings always produce the same tree,
+ * file for file and byte for byte.
+ * <p>
+ * A marker file describing the settings is written once the tree is complete. A tree whose
+ * marker matches the current settings is reused rather than created again, while a tree with
+ * different settings is replaced. A directory without a marker is never touched, so that an
+ * existing directory cannot be deleted by mistake.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class TreeGenerator {
+    private static final String MARKER_FILE = ".dfl-benchmark";
+    private static final String[] EXTENSIONS = {"txt", "bin", "jpg", "dat", "log"};
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * This is the seed, as a <code>long</code>, from which the whole tree is generated.
+     */
+    public long seed = 1L;
+    
+    /**
+     * This is the number of levels of directories, as an <code>int</code>, below the root.
+     */
+    public int depth = 3;
+    
+    /**
+     * This is the number of sub-directories, as an <code>int</code>, created in each directory above the deepest level.
+     */
+    public int fanOut = 4;
+    
+    /**
+     * This is the number of files, as an <code>int</code>, created in each directory.
+     */
+    public int filesPerDirectory = 50;
+    
+    /**
+     * This is the smallest size in bytes, as a <code>long</code>, of a unique file.
+     */
+    public long minFileSize = 0L;
+    
+    /**
+     * This is the largest size in bytes, as a <code>long</code>, of a unique file. Sizes are spread
+     * evenly on a logarithmic scale, so small files are far more common than large ones.
+     */
+    public long maxFileSize = 1024L * 1024L;
+    
+    /**
+     * This is the fraction of files, as a <code>double</code>, which are copies of an earlier file.
+     */
+    public double duplicateRatio = 0.2;
+    
+    /**
+     * This is the fraction of files, as a <code>double</code>, which are hard links to an earlier file.
+     */
+    public double hardlinkRatio = 0.02;
+    
+    /**
+     * This is the number of symbolic links, as a fraction of the number of files as a <code>double</code>,
+     * which are added once the tree is complete. Half link to a file and half to a directory,
+     * which may be one of the link's own parents.
+     */
+    public double symlinkRatio = 0.01;
+    
+    private SplittableRandom random;
+    private final List<Path> uniqueFiles = new ArrayList<>();
+    private final List<Path> directories = new ArrayList<>();
+    
+    /**
+     * This method returns a description of the settings which fully determine the tree.
+     * 
+     * @return Returns the description as {@link String}
+     */
+    public String describe() {
+        
+        return "seed=" + seed + " depth=" + depth + " fanOut=" + fanOut + " files=" + filesPerDirectory +
+            " sizes=" + minFileSize + "-" + maxFileSize + " duplicates=" + duplicateRatio +
+            " hardlinks=" + hardlinkRatio + " symlinks=" + symlinkRatio;
+    }
+    
+    /**
+     * This method creates the tree at the given root, unless the tree found there was already
+     * created using the same settings.
+     * 
+     * @param root - The directory to create the tree in as {@link Path}
+     * 
+     * @return Returns a <code>boolean</code> true if the tree was created, or false if it was reused.
+     * 
+     * @throws IOException Indicates the tree could not be created, or that the root exists and was not created by this class.
+     */
+    public boolean generate(Path root) throws IOException {
+        Path marker = root.resolve(MARKER_FILE);
+        if (Files.exists(root, LinkOption.NOFOLLOW_LINKS)) { // Something is already there...
+            if (!Files.isRegularFile(marker)) { // Not a tree that was generated...
+                
+                throw new IOException("Refusing to replace '" + root + "' as it was not created by the benchmark!");
+            }
+            if (new String(Files.readAllBytes(marker), StandardCharsets.UTF_8).equals(describe())) { // Same tree as requested...
+                
+                return false;
+            }
+            deleteTree(root);
+        }
+        
+        random = new SplittableRandom(seed);
+        uniqueFiles.clear();
+        directories.clear();
+        Files.createDirectories(root);
+        Files.write(marker, new byte[0]); // <-- Marks the tree as generated before anything else is written...
+        generateDirectory(root, 0);
+        generateSymlinks();
+        
+        /* Record the settings last, such that an interrupted tree is created again */
+        Files.write(marker, describe().getBytes(StandardCharsets.UTF_8));
+        
+        return true;
+    }
+    
+    /**
+     * PRIVATE METHOD:
+     * Creates the files of the given directory followed by its sub-directories.
+     * 
+     * @param dir - The directory as {@link Path}
+     * @param level - The level of the directory below the root as <code>int</code>
+     * 
+     * @throws IOException Indicates there was a problem while writing.
+     */
+    private void generateDirectory(Path dir, int level) throws IOException {
+        Files.createDirectories(dir);
+        directories.add(dir);
+        
+        for (int i = 0; i < filesPerDirectory; i++) {
+            Path file = dir.resolve("file-" + i + "." + EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+            double roll = random.nextDouble();
+            if (!uniqueFiles.isEmpty() && roll < hardlinkRatio) { // File is a hard link...
+                Path target = uniqueFiles.get(random.nextInt(uniqueFiles.size()));
+                try {
+                    Files.createLink(file, target);
+                } catch (UnsupportedOperationException | IOException e) { // File system does not support hard links...
+                    Files.copy(target, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } else if (!uniqueFiles.isEmpty() && roll < hardlinkRatio + duplicateRatio) { // File is a copy...
+                Files.copy(uniqueFiles.get(random.nextInt(uniqueFiles.size())), file);
+            } else { // File is unique...
+                writeContent(file, nextFileSize(), random.nextLong());
+                uniqueFiles.add(file);
+            }
+        }
+        
+        if (level < depth) { // There are deeper levels to create...
+            for (int i = 0; i < fanOut; i++) {
+                generateDirectory(dir.resolve("dir-" + i), level + 1);
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE METHOD:
+     * Adds symbolic links throughout the tree, to files and to directories.
+     * 
+     * @throws IOException Indicates there was a problem while creating a link.
+     */
+    private void generateSymlinks() throws IOException {
+        long count = Math.round(symlinkRatio * directories.size() * filesPerDirectory);
+        for (long i = 0; i < count; i++) {
+            Path dir = directories.get(random.nextInt(directories.size()));
+            Path target = (i % 2 == 0 ?
+                uniqueFiles.get(random.nextInt(uniqueFiles.size())) :
+                directories.get(random.nextInt(directories.size())));
+            Path relative = dir.relativize(target);
+            if (relative.toString().isEmpty()) { // Link is to its own directory, which an empty path cannot express...
+                relative = Path.of(".");
+            }
+            try {
+                Files.createSymbolicLink(dir.resolve("link-" + i), relative);
+            } catch (UnsupportedOperationException e) { // File system does not support symbolic links...
+                
+                return;
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE METHOD:
+     * Returns the size of the next unique file, spread evenly on a logarithmic scale.
+     * 
+     * @return Returns the size in bytes as <code>long</code>
+     */
+    private long nextFileSize() {
+        double low = Math.log(minFileSize + 1.0);
+        double high = Math.log(maxFileSize + 1.0);
+        
+        return Math.max(minFileSize, Math.min(maxFileSize, Math.round(Math.exp(low + random.nextDouble() * (high - low)) - 1.0)));
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Writes a file of the given size whose content is determined by the given seed.
+     * 
+     * @param file - The file to write as {@link Path}
+     * @param size - The size of the file as <code>long</code>
+     * @param contentSeed - The seed of the content as <code>long</code>
+     * 
+     * @throws IOException Indicates there was a problem while writing.
+     */
+    private static void writeContent(Path file, long size, long contentSeed) throws IOException {
+        SplittableRandom content = new SplittableRandom(contentSeed);
+        byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), WRITE_BUFFER_SIZE);) {
+            long remaining = size;
+            while (remaining > 0) {
+                int count = (int) Math.min(buffer.length, remaining);
+                for (int i = 0; i < count; i += Long.BYTES) {
+                    long value = content.nextLong();
+                    for (int j = i; j < Math.min(count, i + Long.BYTES); j++) {
+                        buffer[j] = (byte) value;
+                        value >>>= 8;
+                    }
+                }
+                out.write(buffer, 0, count);
+                remaining -= count;
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Deletes the given tree, without following any of the symbolic links inside of it.
+     * 
+     * @param root - The root of the tree as {@link Path}
+     * 
+     * @throws IOException Indicates there was a problem while deleting.
+     */
+    private static void deleteTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    
+                    throw e;
+                }
+                Files.delete(dir);
+                
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -1,14 +1,22 @@
 package com.firebirdcss.tool.duplicate_file_locator;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import com.firebirdcss.tool.duplicate_file_locator.data.DuplicateGroup;
 import com.firebirdcss.tool.duplicate_file_locator.data.ScanType;
 import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
 import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
@@ -25,6 +33,7 @@ import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
 public class ApplicationMain {
     private static ArrayList<DirectoryProcessor> scanProcesses = new ArrayList<>();
     private static Scanner scanner = new Scanner(System.in);
+    private static Map<String, ScanType> resumedDirectories = null;
     
     /**
      * MAIN METHOD: 
@@ -35,39 +44,65 @@ public class ApplicationMain {
     public static void main(String[] args) {
         processApplicationArgs(args);
         displayScanSummary(scanner);
+        long startTime = System.nanoTime();
         
-        /* Creating and starting local scans for all applicable directories */
-        for (String scan : Settings.localScanPaths) { // Iterate localScanPaths...
-            DirectoryProcessor dp = new DirectoryProcessor(scan, ScanType.LOCAL_SCAN);
-            Thread t = new Thread(dp);
-            t.start();
-            scanProcesses.add(dp);
+        /* Count the file sizes first if only files which may share a size are to be kept */
+        if (Settings.twoPass && !Settings.resume) {
+            System.out.println("Pass 1 of 2: Counting file sizes...");
+            DirectoryProcessor.beginSizingPass();
+            startScanProcesses();
+            waitForScanProcesses();
+            DirectoryProcessor.beginHashingPass();
+            scanProcesses.clear();
+            System.out.println("Pass 2 of 2: Hashing files whose size may be shared...");
         }
+        startScanProcesses();
         
-        /* Creating and starting full scans for all applicable directories */
-        for (String scan : Settings.fullScanPaths) { // Iterate fullScanPaths...
-            DirectoryProcessor dp = new DirectoryProcessor(scan, ScanType.FULL_SCAN);
-            Thread t = new Thread(dp);
-            t.start();
-            scanProcesses.add(dp);
+        /* Start tuning the hashing concurrency if requested */
+        ConcurrencyController.start();
+        
+        /* Start saving progress if requested */
+        if (Settings.checkpointFile != null) {
+            Checkpointer.start();
         }
         
         /* Wait for all scanning processes to complete */
-        while (scanProcesses.stream().anyMatch(p -> p.isScanning() == true)) { // At least one process is running...
-            try {
-                TimeUnit.SECONDS.sleep(1);
-            } catch (InterruptedException e) {
-                // Do nothing...
-            }
+        waitForScanProcesses();
+        
+        /* Hash the files which were held back to be read in disk order */
+        if (Settings.orderedReads) {
+            ReadScheduler.hashCandidates();
+        }
+        
+        /* Report the hashing concurrency which was settled on */
+        ConcurrencyController.stop();
+        
+        /* Save the completed scan so its results can be revisited */
+        if (Settings.checkpointFile != null) {
+            Checkpointer.stop();
         }
         
         /* Notify user of scan being complete */
         System.out.println("\n\nScan is complete.\n");
+        
+        /* Report on the scan rather than cleaning up when no one is there to answer */
+        if (Settings.nonInteractive) {
+            if (Settings.chunkAnalysis) {
+                ChunkAnalyzer.printReport();
+            }
+            displayScanStatistics(startTime);
+            
+            System.exit(0);
+        }
         Utilities.shortPause();
         
+        /* Display the chunk analysis if it was requested */
+        if (Settings.chunkAnalysis) {
+            displayChunkAnalysis(scanner);
+        }
+        
         /* Fetch and process the scan results */
-        Map<String, ArrayList<String>> results = scanProcesses.get(0).getResults();
-        doUserCleanup(scanner, results);
+        doUserCleanup(scanner, DirectoryProcessor.getResults());
         System.out.println("\nCleanup is complete.");
         
         /* Shutdown and cleanup the application resources */
@@ -79,17 +114,109 @@ public class ApplicationMain {
         System.exit(0);
     }
     
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method displays statistics about the completed scan, one per line as a label followed
+     * by a plain number, such that they can be read by tools as well as people. The peak heap is
+     * the sum of the peak usage of each heap memory pool, and as the pools do not all peak at the
+     * same moment it is an upper bound on the real peak.
+     * 
+     * @param startTime - The value of {@link System#nanoTime()} when the scan started as <code>long</code>
+     */
+    private static void displayScanStatistics(long startTime) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        
+        /* Total the results, in no particular order as only the sums are needed */
+        long groups = 0L;
+        long wastedBytes = 0L;
+        for (DuplicateGroup group : DirectoryProcessor.getProcessedFiles().values()) {
+            if (group.getCopies() > 1) { // Group has duplicates...
+                groups++;
+                wastedBytes += group.getWastedBytes();
+            }
+        }
+        
+        long peakHeapBytes = 0L;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) { // Iterate the JVM's memory pools...
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        
+        System.out.println("==== Scan statistics ====");
+        System.out.println("Elapsed milliseconds: " + elapsedMillis);
+        System.out.println("Bytes hashed: " + ConcurrencyController.getBytesHashed());
+        System.out.println("Files hashed: " + ConcurrencyController.getFilesHashed());
+        System.out.println("Peak heap bytes (upper bound): " + peakHeapBytes);
+        System.out.println("Duplicate groups: " + groups);
+        System.out.println("Wasted bytes: " + wastedBytes);
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method waits for all of the started scanning processes to complete, returning as soon
+     * as the last of them finishes.
+     */
+    private static void waitForScanProcesses() {
+        boolean done = false;
+        while (!done) {
+            try {
+                DirectoryProcessor.awaitScanning();
+                done = true;
+            } catch (InterruptedException e) {
+                // Do nothing...
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method is used to start the scanning processes for all of the directories to scan, or
+     * for the directories which were still pending when continuing a previous scan.
+     */
+    private static void startScanProcesses() {
+        if (Settings.resume) { // Continuing a previous scan...
+            /* Creating and starting scans for the directories which were pending */
+            for (Entry<String, ScanType> pending : resumedDirectories.entrySet()) { // Iterate pending directories...
+                DirectoryProcessor dp = new DirectoryProcessor(pending.getKey(), pending.getValue());
+                Thread t = new Thread(dp);
+                t.start();
+                scanProcesses.add(dp);
+            }
+        } else { // Starting a new scan...
+            /* Creating and starting local scans for all applicable directories */
+            for (String scan : Settings.localScanPaths) { // Iterate localScanPaths...
+                DirectoryProcessor dp = new DirectoryProcessor(scan, ScanType.LOCAL_SCAN);
+                Thread t = new Thread(dp);
+                t.start();
+                scanProcesses.add(dp);
+            }
+            
+            /* Creating and starting full scans for all applicable directories */
+            for (String scan : Settings.fullScanPaths) { // Iterate fullScanPaths...
+                DirectoryProcessor dp = new DirectoryProcessor(scan, ScanType.FULL_SCAN);
+                Thread t = new Thread(dp);
+                t.start();
+                scanProcesses.add(dp);
+            }
+        }
+    }
+    
     /**
      * PRIVATE STATIC METHOD:
      * This method handles walking the user though all of the results of the scans and enables
-     * the user to decide what they want to do about each of the items discovered.
+     * the user to decide what they want to do about each of the items discovered. The items
+     * are visited in order of the most wasted space first.
      * 
      * @param sc - An instance of {@link Scanner}
-     * @param scanResults - A {@link Map} containing the scan results
+     * @param scanResults - An {@link Iterator} over the scan results as {@link DuplicateGroup}s
      */
-    private static void doUserCleanup(Scanner sc, Map<String, ArrayList<String>> scanResults) {
+    private static void doUserCleanup(Scanner sc, Iterator<DuplicateGroup> scanResults) {
         boolean isRunning = true;
-        for (Entry<String, ArrayList<String>> e : scanResults.entrySet()) { // Iterate though the scan results...
+        boolean hadResults = scanResults.hasNext();
+        while (scanResults.hasNext()) { // Iterate though the scan results...
+            DuplicateGroup group = scanResults.next();
+            Entry<String, ArrayList<String>> e = new SimpleEntry<>(group.getHash(), group.getPaths());
             boolean fullRepeat;
             do {
                 fullRepeat = false;
@@ -100,24 +227,13 @@ public class ApplicationMain {
                         repeat = false;
                         if (!isRunning) break;
                         
-                        /* Calculate file size if possible */
-                        long fileSize = -1;
-                        long wastedSpace = -1;
-                        try {
-                            fileSize = Files.size(Path.of(e.getValue().get(0)));
-                            wastedSpace = fileSize * (e.getValue().size() - 1);
-                            
-                        } catch (IOException e1) {
-                            // Just move on...
-                        }
+                        /* Calculate the space wasted by the remaining files */
+                        long fileSize = group.getFileSize();
+                        long wastedSpace = fileSize * (e.getValue().size() - 1);
                         
                         /* Display file information header */
                         Utilities.clearConsole();
-                        if (fileSize > -1) { // File size was able to be determined...
-                            System.out.println("\nDuplicates for file hash '" + e.getKey() + "'\n    File Size '" + Utilities.humanReadableSize(fileSize) + "'; Potentially wasted space '" + Utilities.humanReadableSize(wastedSpace) + "':");
-                        } else { // File size could not be determined...
-                            System.out.println("\nDuplicates for file hash '" + e.getKey() + "':");
-                        }
+                        System.out.println("\nDuplicates for file hash '" + e.getKey() + "'\n    File Size '" + Utilities.humanReadableSize(fileSize) + "'; Potentially wasted space '" + Utilities.humanReadableSize(wastedSpace) + "':");
                         
                         /* Display paths with choice selection bullet */
                         for (int i = 1; i <= e.getValue().size(); i++) { 
@@ -202,12 +318,26 @@ public class ApplicationMain {
             } while(fullRepeat);
         }
         
-        if (scanResults.isEmpty()) {
+        if (!hadResults) {
             System.out.println("\nThere were no duplicate items to cleanup.");
             Utilities.shortPause();
         }
     }
     
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method is used to display the results of the chunk analysis
+     * and wait for the user before moving on to the cleanup.
+     * 
+     * @param sc - This is a {@link Scanner} to be used for gathering input.
+     */
+    private static void displayChunkAnalysis(Scanner sc) {
+        Utilities.clearConsole();
+        ChunkAnalyzer.printReport();
+        System.out.print("\n\nPress Enter to continue: ");
+        sc.nextLine();
+    }
+    
     /**
      * PRIVATE STATIC METHOD:
      * This method is used to display a summary of the upcoming scan.
@@ -227,10 +357,21 @@ public class ApplicationMain {
                 ((list = Settings.localScanPaths.stream().reduce("", (a,b) -> a + "\t" + b + "\n")).isBlank() ? "\tNone\n" : list) +
             "\n" +
             "Exclusion patterns:\n" + 
-                ((list = Settings.exemptPatterns.stream().reduce("", (a,b) -> a + "\t" + b + "\n")).isBlank() ? "\tNone\n" : list)
+                ((list = Settings.exemptPatterns.stream().reduce("", (a,b) -> a + "\t" + b + "\n")).isBlank() ? "\tNone\n" : list) +
+            (Settings.twoPass && !Settings.resume ? 
+                "\nTwo pass scan using " + Utilities.humanReadableSize(Settings.sketchSize) + " to count file sizes.\n" +
+                (Settings.chunkAnalysis ? "NOTE: Chunk analysis reads every file, so the second pass cannot skip any.\n" : "") : "") +
+            (Settings.resume ? 
+                "\nResuming from checkpoint '" + Settings.checkpointFile + "' with " + resumedDirectories.size() + " pending directories.\n" +
+                (Settings.chunkAnalysis ? "NOTE: Chunk analysis only covers files processed after resuming.\n" : "") : "")
         ;
         Utilities.clearConsole();
         System.out.println(message);
+        if (Settings.nonInteractive) { // No one is there to press Enter...
+            System.out.println("\n");
+            
+            return;
+        }
         System.out.print("\n\nPress Enter to continue: ");
         sc.nextLine();
         System.out.println("\n");
@@ -262,6 +403,101 @@ public class ApplicationMain {
                         i++;
                         Settings.localScanPaths.add(args[i]);
                         break;
+                    case "-c":
+                    case "--chunk-analysis":
+                        Settings.chunkAnalysis = true;
+                        break;
+                    case "-a":
+                    case "--archives":
+                        Settings.scanArchives = true;
+                        break;
+                    case "-t":
+                    case "--tree-hash-threshold":
+                        i++;
+                        Settings.treeHashThreshold = Utilities.parseSize(args[i]);
+                        if (Settings.treeHashThreshold <= 0) { // Threshold must be a positive size...
+                            
+                            throw new IllegalArgumentException("The tree hash threshold must be greater than zero!");
+                        }
+                        break;
+                    case "-o":
+                    case "--ordered-reads":
+                        i++;
+                        Settings.orderedReads = true;
+                        Settings.readThreads = Integer.parseInt(args[i]);
+                        if (Settings.readThreads <= 0) { // Must have at least one reader...
+                            
+                            throw new IllegalArgumentException("The number of read threads must be greater than zero!");
+                        }
+                        break;
+                    case "--adaptive-threads":
+                        i++;
+                        String[] bounds = args[i].split(":");
+                        Settings.adaptiveConcurrency = true;
+                        Settings.minHashThreads = Integer.parseInt(bounds[0]);
+                        Settings.maxHashThreads = Integer.parseInt(bounds[1]);
+                        if (Settings.minHashThreads <= 0 || Settings.maxHashThreads < Settings.minHashThreads) { // Bounds are not a valid range...
+                            
+                            throw new IllegalArgumentException("The adaptive thread bounds must be given as <min>:<max> where 0 < min <= max!");
+                        }
+                        break;
+                    case "--min-size":
+                        i++;
+                        Settings.minFileSize = Utilities.parseSize(args[i]);
+                        break;
+                    case "--max-size":
+                        i++;
+                        Settings.maxFileSize = Utilities.parseSize(args[i]);
+                        break;
+                    case "--modified-after":
+                        i++;
+                        Settings.modifiedAfter = LocalDate.parse(args[i]).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                        break;
+                    case "--modified-before":
+                        i++;
+                        Settings.modifiedBefore = LocalDate.parse(args[i]).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                        break;
+                    case "--include-ext":
+                        i++;
+                        Utilities.parseExtensions(args[i], Settings.includeExtensions);
+                        break;
+                    case "--exclude-ext":
+                        i++;
+                        Utilities.parseExtensions(args[i], Settings.excludeExtensions);
+                        break;
+                    case "-2":
+                    case "--two-pass":
+                        Settings.twoPass = true;
+                        break;
+                    case "--sketch-size":
+                        i++;
+                        Settings.sketchSize = Utilities.parseSize(args[i]);
+                        if (Settings.sketchSize <= 0) { // Sketch must have room for counters...
+                            
+                            throw new IllegalArgumentException("The sketch size must be greater than zero!");
+                        }
+                        break;
+                    case "-y":
+                    case "--non-interactive":
+                        Settings.nonInteractive = true;
+                        break;
+                    case "--checkpoint":
+                        i++;
+                        Settings.checkpointFile = args[i];
+                        break;
+                    case "--checkpoint-interval":
+                        i++;
+                        Settings.checkpointInterval = Integer.parseInt(args[i]);
+                        if (Settings.checkpointInterval <= 0) { // Interval must be a positive number of seconds...
+                            
+                            throw new IllegalArgumentException("The checkpoint interval must be greater than zero!");
+                        }
+                        break;
+                    case "--resume":
+                        i++;
+                        Settings.checkpointFile = args[i];
+                        Settings.resume = true;
+                        break;
                     case "-?":
                     case "-h":
                     case "--help":
@@ -278,6 +514,15 @@ public class ApplicationMain {
             showHelp();
         }
         
+        if (Settings.resume) { // Load the progress of the previous scan...
+            try {
+                resumedDirectories = Checkpointer.restore();
+            } catch (IOException e) {
+                System.out.println("ERROR: Unable to resume from the checkpoint file '" + Settings.checkpointFile + "'; " + e.getMessage() + "\n\n");
+                showHelp(); // <-- Application exit happens in here.
+            }
+        }
+        
         reconcileScanPaths();
     }
     
@@ -293,11 +538,31 @@ public class ApplicationMain {
             System.out.println("\nERROR: At least one directory must be listed to scan!\n\n");
             showHelp(); // <-- Application exit happens in here.
         } else { // Something to scan...
+            resolveScanPaths(Settings.fullScanPaths);
+            resolveScanPaths(Settings.localScanPaths);
             pruneFullScansThatAreCoveredByMoreInclusiveScans();
             pruneLocalScanPathsCoveredByFullScans();
         }
     }
     
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method is used to replace each of the paths in the given set with its real path,
+     * such that paths reaching the same directory through symbolic links or <code>..</code>
+     * elements can be recognized as the same directory.
+     * 
+     * @param scanPaths - The set of paths to resolve as a {@link Set} of {@link String}
+     */
+    private static void resolveScanPaths(Set<String> scanPaths) {
+        ArrayList<String> resolved = new ArrayList<>();
+        for (String path : scanPaths) {
+            resolved.add(Utilities.toRealPath(path));
+        }
+        
+        scanPaths.clear();
+        scanPaths.addAll(resolved);
+    }
+    
     /**
      * PRIVATE STATIC METHOD:
      * This method is used to prune directories from the {@link Settings.fullScanPaths} set which are 
@@ -317,9 +582,9 @@ public class ApplicationMain {
                     String iPath = aFullScanPaths[i];
                     String pPath = aFullScanPaths[p];
                     
-                    if (iPath.startsWith(pPath)) { // pPath is more inclusive...
+                    if (Path.of(iPath).startsWith(pPath)) { // pPath is more inclusive...
                         pruneList.add(iPath);
-                    } else if (pPath.startsWith(iPath)) { // iPath is more inclusive...
+                    } else if (Path.of(pPath).startsWith(iPath)) { // iPath is more inclusive...
                         pruneList.add(pPath);
                         pMovedToPruneList.add(Integer.valueOf(p));
                     }
@@ -347,7 +612,7 @@ public class ApplicationMain {
         /* Build a list of paths to prune from localScanPaths */
         for (String local : Settings.localScanPaths) {
             for (String full : Settings.fullScanPaths) {
-                if (local.startsWith(full)) {
+                if (Path.of(local).startsWith(full)) { // Compared by whole path elements so '/data/ab' is not within '/data/a'...
                     pruneList.add(local);
                 }
             }
@@ -374,6 +639,32 @@ public class ApplicationMain {
             "            - *<path>*\tContains path\n" +
             "            - <path>*\tStarts with path\n" +
             "            - *<path>\tEnds with path\n" +
+            "    -c --chunk-analysis       Report data shared between files at the chunk level.\n" +
+            "    -a --archives             Also find duplicates among entries of zip and jar files.\n" +
+            "        The size and extension filters apply to the archives and to their entries.\n" +
+            "    --min-size <size>         Only scan files of at least the given size, such as 1M.\n" +
+            "    --max-size <size>         Only scan files of at most the given size, such as 4G.\n" +
+            "    --modified-after <yyyy-mm-dd>\n" +
+            "                              Only scan files last modified after the given date.\n" +
+            "    --modified-before <yyyy-mm-dd>\n" +
+            "                              Only scan files last modified before the given date.\n" +
+            "    --include-ext <ext,...>   Only scan files having one of the given extensions.\n" +
+            "    --exclude-ext <ext,...>   Do not scan files having any of the given extensions.\n" +
+            "    -t --tree-hash-threshold <bytes>\n" +
+            "                              Hash files of at least this size on many threads (default 1 GB).\n" +
+            "    -o --ordered-reads <threads>\n" +
+            "                              Hash only files sharing a size, after listing, in disk order.\n" +
+            "    --adaptive-threads <min>:<max>\n" +
+            "                              Tune the number of threads hashing files to the measured throughput.\n" +
+            "    -2 --two-pass             Count file sizes first, then keep and hash only files sharing a size.\n" +
+            "    --sketch-size <size>      Memory used to count file sizes in a two pass scan (default 16M).\n" +
+            "    --checkpoint <file>       Periodically save the progress of the scan to the given file.\n" +
+            "        Progress since the last full save is added to <file>.log, which must be kept with it.\n" +
+            "    --checkpoint-interval <seconds>\n" +
+            "                              Seconds between saves of the scan's progress (default 60).\n" +
+            "    --resume <file>           Continue the scan saved in the given checkpoint file.\n" +
+            "        The directories, exemptions and hashing options are taken from the checkpoint.\n" +
+            "    -y --non-interactive      Scan without prompting and print statistics instead of cleaning up.\n" +
             "    -? -h --help              Prints this help message\n" +
             "NOTE: At least one directory to scan must be specified.\n\n"
         ;
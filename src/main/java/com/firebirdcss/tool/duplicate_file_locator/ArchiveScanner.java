@@ -0,0 +1,278 @@
+package com.firebirdcss.tool.duplicate_file_locator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Enumeration;
+import java.util.function.LongConsumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
+import com.firebirdcss.tool.duplicate_file_locator.util.TreeHasher;
+import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
+
+/**
+ * This class is the Archive Scanner.
+ * Its job is to hash zip based archives, such as jars, while at the same time hashing
+ * each of the entries inside of them, so that duplicated entries and entries which
+ * duplicate loose files on disk can be located without extracting anything to disk.
+ * <p>
+ * Entries are reported using a virtual path made up of the archive's path, the
+ * {@link #ENTRY_SEPARATOR} and the entry's name. Archives nested inside of archives are
+ * processed the same way and receive a virtual path of their own.
+ * <p>
+ * Every entry receives the same hash as an identical file on disk, including entries whose
+ * size the archive only records after their content, as is common for compressed entries.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class ArchiveScanner {
+    private ArchiveScanner() {} // Prevent instantiation
+    
+    /**
+     * The separator placed between an archive's path and the name of an entry within it.
+     */
+    public static final String ENTRY_SEPARATOR = "!/";
+    
+    private static final String[] ARCHIVE_EXTENSIONS = {".zip", ".jar", ".war", ".ear"};
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * This method is used to determine if the given file name is that of an archive
+     * which the {@link ArchiveScanner} is able to read.
+     * 
+     * @param name - The name of the file as {@link String}
+     * 
+     * @return Returns a <code>boolean</code> true if the name is that of an archive, otherwise false.
+     */
+    public static boolean isArchive(String name) {
+        String lower = name.toLowerCase();
+        for (String ext : ARCHIVE_EXTENSIONS) { // Iterate the known archive extensions...
+            if (lower.endsWith(ext)) { // Name has an archive extension...
+                
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * This method reads the given archive a single time, hashing the archive as a whole
+     * as well as each of the entries inside of it. The hash, virtual path and size of each
+     * entry are handed to the given consumer as they are found.
+     * <p>
+     * If the archive turns out to be damaged the remaining entries are skipped, however
+     * the archive itself is still hashed.
+     * 
+     * @param file - The archive to process as {@link File}
+     * @param entryConsumer - An {@link EntryConsumer} accepting the hash, virtual path and size of each entry
+     * 
+     * @return Returns the hash of the archive file as a {@link String}
+     * 
+     * @throws FileNotFoundException Indicates the given file is missing and cannot be found.
+     * @throws IOException Indicates there was a problem while reading the file.
+     * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+     */
+    public static String hashArchive(File file, EntryConsumer entryConsumer) throws FileNotFoundException, IOException, NoSuchAlgorithmException {
+        String path = file.getAbsolutePath();
+        InputStream in = new FileInputStream(file);
+        if (Settings.chunkAnalysis) { // Chunk the archive from the same stream...
+            in = ChunkAnalyzer.newChunkingInputStream(in, path);
+        }
+        
+        try (InputStream source = in;) {
+            
+            return hashArchiveStream(source, path, file.length(), entryConsumer);
+        }
+    }
+    
+    /**
+     * This method hands the size of each entry of the given archive to the given consumer, using
+     * the archive's central directory rather than reading the entries themselves. Archives nested
+     * inside the archive have no central directory to hand, so they are read through to find the
+     * sizes of their own entries, in the same way they are when the archive is hashed.
+     * 
+     * @param file - The archive as {@link File}
+     * @param sizeConsumer - A {@link LongConsumer} accepting the size of each entry
+     */
+    public static void forEachEntrySize(File file, LongConsumer sizeConsumer) {
+        try (ZipFile zip = new ZipFile(file);) {
+            byte[] buffer = null;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) { // Iterate the entries of the archive...
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && entry.getSize() >= 0) { // Entry has content of a known size...
+                    sizeConsumer.accept(entry.getSize());
+                    if (isArchive(entry.getName())) { // Entry is itself an archive...
+                        buffer = (buffer == null ? new byte[READ_BUFFER_SIZE] : buffer);
+                        try (InputStream in = zip.getInputStream(entry);) {
+                            forEachStreamEntrySize(in, sizeConsumer, buffer);
+                        } catch (IOException e) {
+                            // Nested archive is damaged, whatever can be read of it is found when it is hashed...
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Archive is damaged, whatever can be read of it is found when it is hashed...
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method hands the size of each entry of the archive held in the given stream, including
+     * the entries of any archives nested inside of it, to the given consumer. Entries whose size is
+     * only recorded after their content are read through to learn it. The given stream is read to
+     * its end but is not closed.
+     * 
+     * @param in - The stream containing the archive as {@link InputStream}
+     * @param sizeConsumer - A {@link LongConsumer} accepting the size of each entry
+     * @param buffer - A buffer to read into as a <code>byte</code> array
+     * 
+     * @throws IOException Indicates there was a problem while reading the stream.
+     */
+    private static void forEachStreamEntrySize(InputStream in, LongConsumer sizeConsumer, byte[] buffer) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(new NonClosingInputStream(in));) {
+            try {
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) { // Iterate the entries of the archive...
+                    if (!entry.isDirectory()) { // Entry has content...
+                        if (isArchive(entry.getName())) { // Entry is itself an archive...
+                            forEachStreamEntrySize(zis, sizeConsumer, buffer);
+                        } else if (entry.getSize() < 0) { // Size is only known once the entry has been read...
+                            while (zis.read(buffer) != -1) {
+                                // Reading is all that is required...
+                            }
+                        }
+                        zis.closeEntry(); // <-- Reads any trailing record holding the entry's size...
+                        if (entry.getSize() >= 0) { // Entry's size is known...
+                            sizeConsumer.accept(entry.getSize());
+                        }
+                    }
+                }
+            } catch (ZipException e) {
+                // Archive is damaged, whatever can be read of it is found when it is hashed...
+            }
+            
+            /* Drain what remains, such as the central directory, so an enclosing entry is read to its end */
+            while (in.read(buffer) != -1) {
+                // Reading is all that is required...
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method hashes the archive held in the given stream and all of the entries inside of it.
+     * The given stream is read to its end but is not closed.
+     * 
+     * @param in - The stream containing the archive as {@link InputStream}
+     * @param path - The real or virtual path of the archive as {@link String}
+     * @param size - The size of the archive as <code>long</code>, or -1 if unknown
+     * @param entryConsumer - An {@link EntryConsumer} accepting the hash, virtual path and size of each entry
+     * 
+     * @return Returns the hash of the archive as a {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while reading the stream.
+     * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+     */
+    private static String hashArchiveStream(InputStream in, String path, long size, EntryConsumer entryConsumer) throws IOException, NoSuchAlgorithmException {
+        DigestInputStream dis = new DigestInputStream(in, TreeHasher.newDigest(size));
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        
+        try (ZipInputStream zis = new ZipInputStream(new NonClosingInputStream(dis));) {
+            try {
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) { // Iterate the entries of the archive...
+                    if (!entry.isDirectory()) { // Entry has content to hash...
+                        String entryPath = path + ENTRY_SEPARATOR + entry.getName();
+                        String entryHash;
+                        if (isArchive(entry.getName())) { // Entry is itself an archive...
+                            entryHash = hashArchiveStream(zis, entryPath, entry.getSize(), entryConsumer);
+                        } else { // Entry is a regular file...
+                            entryHash = hashStream(zis, entry.getSize(), buffer);
+                        }
+                        entryConsumer.accept(entryHash, entryPath, entry.getSize()); // <-- Size is known once the entry has been read...
+                    }
+                }
+            } catch (ZipException e) {
+                System.out.println("ERROR: The archive could not be fully read, remaining entries will be skipped; Archive: '" + path + "'");
+            }
+            
+            /* Drain what remains, such as the central directory, so the archive's hash covers all of it */
+            while (dis.read(buffer) != -1) {
+                // Reading is all that is required...
+            }
+        }
+        
+        return Utilities.toHexString(dis.getMessageDigest().digest());
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method hashes the remaining content of the given stream.
+     * 
+     * @param in - The stream to hash as {@link InputStream}
+     * @param size - The size of the content as <code>long</code>, or -1 if unknown
+     * @param buffer - A buffer to read into as a <code>byte</code> array
+     * 
+     * @return Returns the hash as a {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while reading the stream.
+     * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+     */
+    private static String hashStream(InputStream in, long size, byte[] buffer) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = TreeHasher.newDigest(size);
+        int bytesCount = 0;
+        while ((bytesCount = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, bytesCount);
+        }
+        
+        return Utilities.toHexString(digest.digest());
+    }
+    
+    /**
+     * This interface is implemented by whatever is to receive the entries found within an archive.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        
+        /**
+         * This method accepts a single entry of an archive.
+         * 
+         * @param hash - The hash of the entry as {@link String}
+         * @param path - The virtual path of the entry as {@link String}
+         * @param size - The size of the entry as <code>long</code>
+         */
+        void accept(String hash, String path, long size);
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * Prevents a {@link ZipInputStream} from closing the stream it reads from, which
+     * may be the entry of an enclosing archive.
+     */
+    private static class NonClosingInputStream extends FilterInputStream {
+        NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            // Leave the underlying stream open...
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package com.firebirdcss.tool.duplicate_file_locator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.firebirdcss.tool.duplicate_file_locator.data.DirectoryClaim;
+import com.firebirdcss.tool.duplicate_file_locator.data.DuplicateGroup;
+import com.firebirdcss.tool.duplicate_file_locator.data.ScanType;
+import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
+import com.firebirdcss.tool.duplicate_file_locator.data.SizeSketch;
+
+/**
+ * This class is the Checkpointer.
+ * Its job is to periodically save the progress of a scan to a local file, such that a scan
+ * which is interrupted can later be resumed rather than started over.
+ * <p>
+ * A checkpoint is made up of a snapshot and a log. The snapshot holds the settings which affect
+ * which files are hashed and how, the sizes counted by the first pass of a two pass scan, the
+ * directories which are still pending along with those which have completed, the claims made on
+ * physical directories along with their real paths, any files waiting to be hashed in disk order,
+ * kept apart by whether or not they have passed size filtering, and every hash seen so far. Rather than writing all of that again every interval, only the files
+ * indexed and the directories claimed or completed since the last interval are added to the end of
+ * the log, followed by the work still pending. Once the log has grown larger than the snapshot, a
+ * new snapshot is written and the log is started over, so that the cost of saving stays in
+ * proportion to the work done since the last save.
+ * <p>
+ * Checkpoints are written by a background thread while the scan carries on. A snapshot is written
+ * to a temporary file which then replaces the previous one, and each log is tied to its snapshot by
+ * a generation number, so that an interruption during a write never leaves a damaged checkpoint
+ * behind. A log whose last interval was cut short is used up to the last complete interval.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class Checkpointer {
+    private Checkpointer() {} // Prevent instantiation
+    
+    private static final int MAGIC = 0x44464C43; // <-- 'DFLC'
+    private static final int VERSION = 8;
+    private static final int LOG_MAGIC = 0x44464C4C; // <-- 'DFLL'
+    
+    private static final int RECORD_FILE = 1;
+    private static final int RECORD_CLAIM = 2;
+    private static final int RECORD_COMPLETED = 3;
+    private static final int RECORD_PENDING = 4;
+    
+    private static final ConcurrentLinkedQueue<LogRecord> unsaved = new ConcurrentLinkedQueue<>();
+    private static volatile boolean logging = false;
+    
+    private static ScheduledExecutorService checkpointService = null;
+    private static long generation = 0L;
+    private static long snapshotBytes = -1L; // <-- No snapshot has been written by this scan yet...
+    private static long logBytes = 0L;
+    
+    /**
+     * This method starts writing a checkpoint to {@link Settings#checkpointFile} every
+     * {@link Settings#checkpointInterval} seconds. The first checkpoint written is always
+     * a full snapshot.
+     */
+    public static void start() {
+        logging = true;
+        checkpointService = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            
+            return t;
+        });
+        checkpointService.scheduleWithFixedDelay(() -> {
+            try { // Try to write the checkpoint...
+                write();
+            } catch (IOException e) {
+                System.out.println("ERROR: Unable to write the checkpoint file '" + Settings.checkpointFile + "'; " + e.getMessage());
+            }
+        }, Settings.checkpointInterval, Settings.checkpointInterval, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * This method stops the periodic writing of checkpoints and writes one final checkpoint,
+     * such that resuming a scan which had completed goes straight to the results.
+     */
+    public static void stop() {
+        if (checkpointService != null) {
+            checkpointService.shutdownNow();
+            checkpointService = null;
+        }
+        
+        try { // Try to write the final checkpoint...
+            write();
+        } catch (IOException e) {
+            System.out.println("ERROR: Unable to write the checkpoint file '" + Settings.checkpointFile + "'; " + e.getMessage());
+        }
+        logging = false;
+        unsaved.clear();
+    }
+    
+    /**
+     * This method records that the given path was added to the index, such that it is saved by
+     * the next checkpoint. Nothing is recorded unless checkpoints are being written.
+     * 
+     * @param hash - The hash of the file as {@link String}
+     * @param path - The path of the file as {@link String}
+     * @param size - The size of the file as <code>long</code>
+     */
+    static void logFile(String hash, String path, long size) {
+        if (logging) {
+            unsaved.add(new LogRecord(RECORD_FILE, hash, path, size, null));
+        }
+    }
+    
+    /**
+     * This method records the given claim on a physical directory, such that it is saved by the
+     * next checkpoint. It must be called before any file is indexed under the claiming path.
+     * Nothing is recorded unless checkpoints are being written.
+     * 
+     * @param claim - The claim as {@link DirectoryClaim}
+     */
+    static void logClaim(DirectoryClaim claim) {
+        if (logging) {
+            unsaved.add(new LogRecord(RECORD_CLAIM, null, claim.getPath(), 0L, claim));
+        }
+    }
+    
+    /**
+     * This method records that the given directory has completed, such that it is saved by the
+     * next checkpoint. It must be called while the directory is removed from the pending directories,
+     * after all of its files were added to the index. Nothing is recorded unless checkpoints are
+     * being written.
+     * 
+     * @param path - The path of the directory as {@link String}
+     */
+    static void logCompleted(String path) {
+        if (logging) {
+            unsaved.add(new LogRecord(RECORD_COMPLETED, null, path, 0L, null));
+        }
+    }
+    
+    /**
+     * This method writes the current progress of the scan to {@link Settings#checkpointFile},
+     * either by adding what has changed to the log or, once the log has grown larger than the
+     * snapshot, by writing a new snapshot.
+     * <p>
+     * The pending work is taken before the files and directories are saved, which guarantees
+     * that any directory not recorded as pending already has all of its files saved.
+     * 
+     * @throws IOException Indicates there was a problem while writing the checkpoint.
+     */
+    public static synchronized void write() throws IOException {
+        Map<String, ScanType> pendingDirectories = DirectoryProcessor.getPendingDirectories();
+        List<String> listedFiles = new ArrayList<>();
+        List<String> filteredFiles = new ArrayList<>();
+        ReadScheduler.getPendingFiles(listedFiles, filteredFiles);
+        
+        if (snapshotBytes < 0 || logBytes > snapshotBytes) { // Log is no longer worth keeping...
+            writeSnapshot(pendingDirectories, listedFiles, filteredFiles);
+        } else { // Add the changes to the log...
+            appendLog(pendingDirectories, listedFiles, filteredFiles);
+        }
+    }
+    
+    /**
+     * This method restores the progress of a scan from {@link Settings#checkpointFile} and its log.
+     * The hashing settings, completed and claimed directories, waiting files and hashes are
+     * restored in place, while the directories which were still pending are returned so that
+     * they may be scanned again. Files of those directories which were already indexed are
+     * skipped when the directories are scanned again.
+     * 
+     * @return Returns a {@link Map} of the pending directory paths as {@link String} to their {@link ScanType}
+     * 
+     * @throws IOException Indicates the checkpoint could not be read or is not a valid checkpoint.
+     */
+    public static Map<String/*DirPath*/, ScanType> restore() throws IOException {
+        Map<String, ScanType> pending = new HashMap<>();
+        List<String> listedFiles = new ArrayList<>();
+        List<String> filteredFiles = new ArrayList<>();
+        long snapshotGeneration;
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(Settings.checkpointFile), 1024 * 1024));) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) { // Not a checkpoint this version can read...
+                
+                throw new IOException("Not a valid checkpoint file: " + Settings.checkpointFile);
+            }
+            snapshotGeneration = in.readLong();
+            
+            /* Settings which affect the scan */
+            Settings.fullScanPaths.addAll(readStrings(in));
+            Settings.localScanPaths.addAll(readStrings(in));
+            Settings.exemptPatterns.addAll(readStrings(in));
+            Settings.scanArchives = in.readBoolean();
+            Settings.treeHashThreshold = in.readLong();
+            Settings.orderedReads = in.readBoolean();
+            Settings.readThreads = in.readInt();
+            Settings.includeExtensions.addAll(readStrings(in));
+            Settings.excludeExtensions.addAll(readStrings(in));
+            Settings.minFileSize = in.readLong();
+            Settings.maxFileSize = in.readLong();
+            Settings.modifiedAfter = in.readLong();
+            Settings.modifiedBefore = in.readLong();
+            Settings.twoPass = in.readBoolean();
+            if (Settings.twoPass) { // Second pass of a two pass scan...
+                long[] words = new long[in.readInt()];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = in.readLong();
+                }
+                DirectoryProcessor.setSizeSketch(new SizeSketch(words));
+            }
+            
+            /* Pending work */
+            readPending(in, pending, listedFiles, filteredFiles);
+            DirectoryProcessor.getCompletedDirectories().addAll(readStrings(in));
+            
+            /* The partial index */
+            while (in.readBoolean()) {
+                String hash = in.readUTF();
+                long size = in.readLong();
+                for (String path : readStrings(in)) {
+                    DirectoryProcessor.indexFile(hash, path, size);
+                }
+            }
+            
+            /* Claims made on physical directories */
+            while (in.readBoolean()) {
+                DirectoryProcessor.restoreClaimedDirectory(readClaim(in));
+            }
+        }
+        
+        replayLog(snapshotGeneration, pending, listedFiles, filteredFiles);
+        
+        /* Files of pending directories which were already indexed need not be hashed again */
+        Set<String> pendingPaths = new HashSet<>();
+        for (String path : pending.keySet()) {
+            pendingPaths.add(new File(path).getAbsolutePath());
+        }
+        for (DuplicateGroup group : DirectoryProcessor.getProcessedFiles().values()) {
+            for (String path : group.getPaths()) {
+                if (pendingPaths.contains(new File(path).getParent())) { // File belongs to a directory which is scanned again...
+                    DirectoryProcessor.restoreIndexedFile(path);
+                }
+            }
+        }
+        
+        Set<String> filtered = new HashSet<>(filteredFiles);
+        for (String path : filtered) {
+            File file = new File(path);
+            ReadScheduler.resubmit(file, file.length());
+        }
+        for (String path : new HashSet<>(listedFiles)) {
+            if (!filtered.contains(path)) { // File was not already scheduled...
+                File file = new File(path);
+                ReadScheduler.submit(file, file.length());
+            }
+        }
+        
+        return pending;
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Writes a new snapshot of the whole scan and starts a new, empty log for it.
+     * 
+     * @param pendingDirectories - The directories still pending as a {@link Map} of path to {@link ScanType}
+     * @param listedFiles - The files waiting for size filtering as a {@link List} of {@link String}
+     * @param filteredFiles - The files which passed size filtering as a {@link List} of {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while writing.
+     */
+    private static void writeSnapshot(Map<String, ScanType> pendingDirectories, List<String> listedFiles, List<String> filteredFiles) throws IOException {
+        Path target = new File(Settings.checkpointFile).getAbsoluteFile().toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long nextGeneration = Math.max(generation + 1, System.currentTimeMillis());
+        unsaved.clear(); // <-- Everything logged so far is saved by the snapshot...
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1024 * 1024));) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nextGeneration);
+            
+            /* Settings which affect the scan */
+            writeStrings(out, Settings.fullScanPaths);
+            writeStrings(out, Settings.localScanPaths);
+            writeStrings(out, Settings.exemptPatterns);
+            out.writeBoolean(Settings.scanArchives);
+            out.writeLong(Settings.treeHashThreshold);
+            out.writeBoolean(Settings.orderedReads);
+            out.writeInt(Settings.readThreads);
+            writeStrings(out, Settings.includeExtensions);
+            writeStrings(out, Settings.excludeExtensions);
+            out.writeLong(Settings.minFileSize);
+            out.writeLong(Settings.maxFileSize);
+            out.writeLong(Settings.modifiedAfter);
+            out.writeLong(Settings.modifiedBefore);
+            SizeSketch sketch = DirectoryProcessor.getSizeSketch();
+            out.writeBoolean(sketch != null);
+            if (sketch != null) { // Second pass of a two pass scan...
+                long[] words = sketch.getWords();
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+            
+            /* Pending work */
+            writePending(out, pendingDirectories, listedFiles, filteredFiles);
+            writeStrings(out, DirectoryProcessor.getCompletedDirectories());
+            
+            /* The partial index */
+            for (DuplicateGroup group : DirectoryProcessor.getProcessedFiles().values()) { // Iterate the hashes seen so far...
+                out.writeBoolean(true);
+                out.writeUTF(group.getHash());
+                out.writeLong(group.getFileSize());
+                writeStrings(out, group.getPaths());
+            }
+            out.writeBoolean(false);
+            
+            /* Claims are saved after the index, so that every path in the index has its claim saved */
+            for (DirectoryClaim claim : DirectoryProcessor.getClaimedDirectories()) {
+                out.writeBoolean(true);
+                writeClaim(out, claim);
+            }
+            out.writeBoolean(false);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = nextGeneration;
+        snapshotBytes = Files.size(target);
+        
+        /* Start the log over, an older log left behind by an interruption is ignored as its generation differs */
+        Path log = logPath();
+        Path logTemp = log.resolveSibling(log.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(logTemp.toFile()));) {
+            out.writeInt(LOG_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+        }
+        Files.move(logTemp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logBytes = Files.size(log);
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Adds the files and directories saved since the last checkpoint to the end of the log,
+     * followed by the work which is still pending.
+     * 
+     * @param pendingDirectories - The directories still pending as a {@link Map} of path to {@link ScanType}
+     * @param listedFiles - The files waiting for size filtering as a {@link List} of {@link String}
+     * @param filteredFiles - The files which passed size filtering as a {@link List} of {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while writing.
+     */
+    private static void appendLog(Map<String, ScanType> pendingDirectories, List<String> listedFiles, List<String> filteredFiles) throws IOException {
+        Path log = logPath();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(log.toFile(), true), 1024 * 1024));) {
+            LogRecord r;
+            while ((r = unsaved.poll()) != null) { // Save everything logged up to now, in the order it happened...
+                out.writeByte(r.type);
+                if (r.type == RECORD_FILE) {
+                    out.writeUTF(r.hash);
+                    out.writeLong(r.size);
+                    out.writeUTF(r.path);
+                } else if (r.type == RECORD_CLAIM) {
+                    writeClaim(out, r.claim);
+                } else { // Directory was completed...
+                    out.writeUTF(r.path);
+                }
+            }
+            out.writeByte(RECORD_PENDING);
+            writePending(out, pendingDirectories, listedFiles, filteredFiles);
+        }
+        logBytes = Files.size(log);
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Replays the log of the snapshot having the given generation on top of the restored snapshot.
+     * Files and claims are applied as they are read, as they only ever add to what is known, while
+     * the directories completed during an interval are only applied once the pending work which
+     * ends the interval has been read, so an interval cut short leaves the pending work as it was.
+     * 
+     * @param snapshotGeneration - The generation of the restored snapshot as <code>long</code>
+     * @param pending - The pending directories, which are replaced, as a {@link Map} of path to {@link ScanType}
+     * @param listedFiles - The files waiting for size filtering, which are replaced, as a {@link List} of {@link String}
+     * @param filteredFiles - The files which passed size filtering, which are replaced, as a {@link List} of {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while reading the log.
+     */
+    private static void replayLog(long snapshotGeneration, Map<String, ScanType> pending, List<String> listedFiles, List<String> filteredFiles) throws IOException {
+        Path log = logPath();
+        if (!Files.isRegularFile(log)) { // Nothing was logged after the snapshot...
+            
+            return;
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(log.toFile()), 1024 * 1024));) {
+            if (in.readInt() != LOG_MAGIC || in.readInt() != VERSION || in.readLong() != snapshotGeneration) { // Log belongs to another snapshot...
+                
+                return;
+            }
+            
+            List<String> completed = new ArrayList<>();
+            int type;
+            while ((type = in.read()) != -1) { // Read records until the end of the log...
+                if (type == RECORD_FILE) {
+                    String hash = in.readUTF();
+                    long size = in.readLong();
+                    DirectoryProcessor.indexFile(hash, in.readUTF(), size);
+                } else if (type == RECORD_CLAIM) {
+                    DirectoryProcessor.restoreClaimedDirectory(readClaim(in));
+                } else if (type == RECORD_COMPLETED) {
+                    completed.add(in.readUTF());
+                } else if (type == RECORD_PENDING) {
+                    Map<String, ScanType> nextPending = new HashMap<>();
+                    List<String> nextListedFiles = new ArrayList<>();
+                    List<String> nextFilteredFiles = new ArrayList<>();
+                    readPending(in, nextPending, nextListedFiles, nextFilteredFiles);
+                    
+                    /* The interval is complete, so apply it */
+                    DirectoryProcessor.getCompletedDirectories().addAll(completed);
+                    completed.clear();
+                    pending.clear();
+                    pending.putAll(nextPending);
+                    listedFiles.clear();
+                    listedFiles.addAll(nextListedFiles);
+                    filteredFiles.clear();
+                    filteredFiles.addAll(nextFilteredFiles);
+                } else { // Record is damaged...
+                    
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // The last interval was cut short, everything before it has been applied...
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Returns the path of the log which follows the snapshot in {@link Settings#checkpointFile}.
+     * 
+     * @return Returns the path of the log as {@link Path}
+     */
+    private static Path logPath() {
+        Path target = new File(Settings.checkpointFile).getAbsoluteFile().toPath();
+        
+        return target.resolveSibling(target.getFileName() + ".log");
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Writes the directories which are pending, followed by the files waiting to be hashed.
+     * 
+     * @param out - The stream to write to as {@link DataOutputStream}
+     * @param pendingDirectories - The directories as a {@link Map} of path to {@link ScanType}
+     * @param listedFiles - The files waiting for size filtering as a {@link List} of {@link String}
+     * @param filteredFiles - The files which passed size filtering as a {@link List} of {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while writing.
+     */
+    private static void writePending(DataOutputStream out, Map<String, ScanType> pendingDirectories, List<String> listedFiles, List<String> filteredFiles) throws IOException {
+        for (Entry<String, ScanType> e : pendingDirectories.entrySet()) {
+            out.writeBoolean(true);
+            out.writeUTF(e.getKey());
+            out.writeUTF(e.getValue().name());
+        }
+        out.writeBoolean(false);
+        writeStrings(out, listedFiles);
+        writeStrings(out, filteredFiles);
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Reads the pending work written by {@link #writePending(DataOutputStream, Map, List, List)}.
+     * 
+     * @param in - The stream to read from as {@link DataInputStream}
+     * @param pendingDirectories - The {@link Map} to add the directories to
+     * @param listedFiles - The {@link List} to add the files waiting for size filtering to
+     * @param filteredFiles - The {@link List} to add the files which passed size filtering to
+     * 
+     * @throws IOException Indicates there was a problem while reading.
+     */
+    private static void readPending(DataInputStream in, Map<String, ScanType> pendingDirectories, List<String> listedFiles, List<String> filteredFiles) throws IOException {
+        while (in.readBoolean()) {
+            String path = in.readUTF();
+            pendingDirectories.put(path, ScanType.valueOf(in.readUTF()));
+        }
+        listedFiles.addAll(readStrings(in));
+        filteredFiles.addAll(readStrings(in));
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Writes the given claim on a physical directory.
+     * 
+     * @param out - The stream to write to as {@link DataOutputStream}
+     * @param claim - The claim as {@link DirectoryClaim}
+     * 
+     * @throws IOException Indicates there was a problem while writing.
+     */
+    private static void writeClaim(DataOutputStream out, DirectoryClaim claim) throws IOException {
+        out.writeUTF(claim.getPath());
+        out.writeUTF(claim.getRealPath());
+        out.writeUTF(claim.getScanType().name());
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Reads a claim written by {@link #writeClaim(DataOutputStream, DirectoryClaim)}.
+     * 
+     * @param in - The stream to read from as {@link DataInputStream}
+     * 
+     * @return Returns the claim as {@link DirectoryClaim}
+     * 
+     * @throws IOException Indicates there was a problem while reading.
+     */
+    private static DirectoryClaim readClaim(DataInputStream in) throws IOException {
+        String path = in.readUTF();
+        String realPath = in.readUTF();
+        
+        return new DirectoryClaim(path, realPath, ScanType.valueOf(in.readUTF()));
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Writes the given strings, each preceded by a marker so the count need not be known up front.
+     * 
+     * @param out - The stream to write to as {@link DataOutputStream}
+     * @param values - The strings to write as a {@link Collection} of {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while writing.
+     */
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        for (String value : values) {
+            out.writeBoolean(true);
+            out.writeUTF(value);
+        }
+        out.writeBoolean(false);
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Reads strings written by {@link #writeStrings(DataOutputStream, Collection)}.
+     * 
+     * @param in - The stream to read from as {@link DataInputStream}
+     * 
+     * @return Returns the strings as an {@link ArrayList} of {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while reading.
+     */
+    private static ArrayList<String> readStrings(DataInputStream in) throws IOException {
+        ArrayList<String> results = new ArrayList<>();
+        while (in.readBoolean()) {
+            results.add(in.readUTF());
+        }
+        
+        return results;
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * A file indexed, or a directory claimed or completed, since the last checkpoint.
+     */
+    private static class LogRecord {
+        private final int type;
+        private final String hash;
+        private final String path;
+        private final long size;
+        private final DirectoryClaim claim;
+        
+        LogRecord(int type, String hash, String path, long size, DirectoryClaim claim) {
+            this.type = type;
+            this.hash = hash;
+            this.path = path;
+            this.size = size;
+            this.claim = claim;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.firebirdcss.tool.duplicate_file_locator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.firebirdcss.tool.duplicate_file_locator.data.ChunkIndex;
+import com.firebirdcss.tool.duplicate_file_locator.util.TreeHasher;
+import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
+
+/**
+ * This class is the Chunk Analyzer.
+ * Its job is to split files into content-defined chunks while they are being hashed, such
+ * that files which are mostly, but not entirely, identical can be found and the amount of
+ * space which could be saved by block-level deduplication can be reported.
+ * <p>
+ * Chunk boundaries are chosen using a Gear rolling hash so that inserting or removing bytes
+ * in one part of a file only changes the chunks around the edit. Each chunk is given a 64-bit
+ * fingerprint which is stored in a {@link ChunkIndex}. All methods are statically accessible
+ * and may be called from many {@link DirectoryProcessor} threads at once.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class ChunkAnalyzer {
+    private ChunkAnalyzer() {} // Prevent instantiation
+    
+    private static final int MIN_CHUNK_SIZE = 2 * 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+    private static final long BOUNDARY_MASK = -1L << 51; // <-- Top 13 bits averages 8 KB chunks over a 64 byte window...
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int REPORTED_PAIRS = 10;
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long[] GEAR = new long[256];
+    static {
+        SplittableRandom random = new SplittableRandom(0x5eed_c0de_f11eL); // <-- Fixed seed keeps boundaries stable between runs...
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+    
+    private static final ChunkIndex chunkIndex = new ChunkIndex();
+    private static final List<String/*FilePath*/> filePaths = Collections.synchronizedList(new ArrayList<>());
+    private static final ConcurrentHashMap<Long/*FileIdPair*/, LongAdder/*SharedBytes*/> sharedBytesByPair = new ConcurrentHashMap<>();
+    private static final LongAdder totalBytes = new LongAdder();
+    private static final LongAdder duplicateBytes = new LongAdder();
+    
+    /**
+     * This method reads the given file a single time, computing its hash while at the
+     * same time splitting its content into chunks and recording them in the chunk index.
+     * Large files receive the same tree hash here as they would from the {@link TreeHasher},
+     * but are read by a single thread since chunking must happen in order. The file and its
+     * chunks are only recorded once the whole file has been read, so a read which fails part
+     * way through may be retried without counting any chunk twice.
+     * 
+     * @param file - The file to hash and chunk as {@link File}
+     * 
+     * @return Returns the file's hash as a {@link String}
+     * 
+     * @throws FileNotFoundException Indicates the given file is missing and cannot be found.
+     * @throws IOException Indicates there was a problem while reading the file.
+     * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+     */
+    public static String hashAndChunkFile(File file) throws FileNotFoundException, IOException, NoSuchAlgorithmException {
+        MessageDigest digest = TreeHasher.newDigest(file.length());
+        Chunker chunker = new Chunker(file.getAbsolutePath());
+        
+        try (FileInputStream fis = new FileInputStream(file);) {
+            byte[] bytes = new byte[READ_BUFFER_SIZE];
+            int bytesCount = 0;
+            
+            while ((bytesCount = fis.read(bytes)) != -1) {
+                digest.update(bytes, 0, bytesCount);
+                chunker.update(bytes, 0, bytesCount);
+            }
+        }
+        chunker.finish();
+        
+        return Utilities.toHexString(digest.digest());
+    }
+    
+    /**
+     * This method wraps the given stream such that every byte read through the returned
+     * stream is also split into chunks and recorded against the given path. This allows
+     * a stream which is being consumed for another purpose, such as reading the entries of
+     * an archive, to be analyzed without reading the underlying file a second time.
+     * The chunks are recorded when the returned stream is closed, but only if it was read to its end.
+     * 
+     * @param in - The stream to wrap as {@link InputStream}
+     * @param path - The path of the file the stream belongs to as {@link String}
+     * 
+     * @return Returns the wrapping stream as an {@link InputStream}
+     */
+    public static InputStream newChunkingInputStream(InputStream in, String path) {
+        
+        return new ChunkingInputStream(in, new Chunker(path));
+    }
+    
+    /**
+     * This method prints a report of the chunk-level analysis to the console, showing how
+     * much of the scanned data is made up of repeated chunks and which files share the most data.
+     */
+    public static void printReport() {
+        long total = totalBytes.sum();
+        long unique = chunkIndex.getUniqueBytes();
+        
+        System.out.println("==== Chunk analysis ====\n");
+        System.out.println("Files analyzed:      " + filePaths.size());
+        System.out.println("Bytes analyzed:      " + Utilities.humanReadableSize(total));
+        System.out.println("Unique chunks:       " + chunkIndex.getChunkCount());
+        System.out.println("Unique chunk bytes:  " + Utilities.humanReadableSize(unique));
+        System.out.println("Repeated bytes:      " + Utilities.humanReadableSize(duplicateBytes.sum()));
+        if (unique > 0) { // Something was analyzed...
+            System.out.println("Dedup ratio:         " + String.format("%.2f", (double) total / (double) unique) + " : 1");
+        }
+        
+        /* Find the file pairs sharing the most bytes */
+        List<Entry<Long, LongAdder>> pairs = new ArrayList<>(sharedBytesByPair.entrySet());
+        pairs.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        
+        System.out.println("\nFiles sharing the most data (each chunk is credited to the first file holding it):");
+        if (pairs.isEmpty()) { // No chunks were shared between files...
+            System.out.println("\tNone");
+        }
+        for (int i = 0; i < pairs.size() && i < REPORTED_PAIRS; i++) { // Iterate the top pairs...
+            long key = pairs.get(i).getKey();
+            System.out.println("\t" + Utilities.humanReadableSize(pairs.get(i).getValue().sum()) + " shared between:");
+            System.out.println("\t\t" + filePaths.get((int) (key >>> 32)));
+            System.out.println("\t\t" + filePaths.get((int) key));
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method assigns the next file id to the given path.
+     * 
+     * @param path - The path of the file as {@link String}
+     * 
+     * @return Returns the id of the file as an <code>int</code>
+     */
+    private static int registerFile(String path) {
+        synchronized (filePaths) {
+            filePaths.add(path);
+            
+            return filePaths.size() - 1;
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method records a completed chunk for the given file. When the chunk was already
+     * seen in another file its length is added to the bytes shared between this file and the
+     * first file the chunk was seen in. Only the first file is kept for each chunk, so a chunk
+     * held by three or more files is not credited to the pairs among the later files.
+     * 
+     * @param fileId - The id of the file the chunk belongs to as <code>int</code>
+     * @param fingerprint - The fingerprint of the chunk as <code>long</code>
+     * @param length - The length of the chunk as <code>int</code>
+     */
+    private static void recordChunk(int fileId, long fingerprint, int length) {
+        totalBytes.add(length);
+        int owner = chunkIndex.putIfAbsent(fingerprint, length, fileId);
+        if (owner != -1) { // Chunk was already known...
+            duplicateBytes.add(length);
+            if (owner != fileId) { // Chunk is shared with another file...
+                long pair = ((long) Math.min(owner, fileId) << 32) | Math.max(owner, fileId);
+                sharedBytesByPair.computeIfAbsent(pair, k -> new LongAdder()).add(length);
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * Tracks the state of chunking a single file as its bytes are fed in. Chunks are held
+     * until {@link #finish()} is called, at which point the file is registered and its chunks recorded.
+     */
+    private static class Chunker {
+        private final String path;
+        
+        private long rollingHash = 0L;
+        private long fingerprint = FNV_OFFSET;
+        private int length = 0;
+        
+        private long[] fingerprints = new long[16];
+        private int[] lengths = new int[16];
+        private int chunkCount = 0;
+        
+        Chunker(String path) {
+            this.path = path;
+        }
+        
+        void update(byte[] bytes, int offset, int count) {
+            for (int i = offset; i < offset + count; i++) { // Iterate the bytes...
+                int b = bytes[i] & 0xff;
+                rollingHash = (rollingHash << 1) + GEAR[b];
+                fingerprint = (fingerprint ^ b) * FNV_PRIME;
+                length++;
+                
+                if (length >= MAX_CHUNK_SIZE || (length >= MIN_CHUNK_SIZE && (rollingHash & BOUNDARY_MASK) == 0)) { // Chunk boundary found...
+                    emit();
+                }
+            }
+        }
+        
+        void finish() {
+            if (length > 0) { // There is a trailing chunk...
+                emit();
+            }
+            
+            int fileId = registerFile(path);
+            for (int i = 0; i < chunkCount; i++) { // Record the held chunks...
+                recordChunk(fileId, fingerprints[i], lengths[i]);
+            }
+            fingerprints = null;
+            lengths = null;
+        }
+        
+        private void emit() {
+            /* Mix the length into the fingerprint so the bits are well spread for the index */
+            long fp = fingerprint ^ length;
+            fp = (fp ^ (fp >>> 33)) * 0xff51afd7ed558ccdL;
+            fp = (fp ^ (fp >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            fp = fp ^ (fp >>> 33);
+            
+            if (chunkCount == fingerprints.length) { // Held chunks are full...
+                fingerprints = Arrays.copyOf(fingerprints, chunkCount << 1);
+                lengths = Arrays.copyOf(lengths, chunkCount << 1);
+            }
+            fingerprints[chunkCount] = fp;
+            lengths[chunkCount] = length;
+            chunkCount++;
+            
+            rollingHash = 0L;
+            fingerprint = FNV_OFFSET;
+            length = 0;
+        }
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * Feeds every byte which passes through it into a {@link Chunker}.
+     */
+    private static class ChunkingInputStream extends FilterInputStream {
+        private final Chunker chunker;
+        private boolean ended = false;
+        private boolean finished = false;
+        
+        ChunkingInputStream(InputStream in, Chunker chunker) {
+            super(in);
+            this.chunker = chunker;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) { // A byte was read...
+                chunker.update(new byte[] {(byte) b}, 0, 1);
+            } else { // Stream has been read to its end...
+                ended = true;
+            }
+            
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) { // Bytes were read...
+                chunker.update(b, off, count);
+            } else if (count == -1) { // Stream has been read to its end...
+                ended = true;
+            }
+            
+            return count;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException {
+            /* Skipped bytes must still be chunked, so they are read instead */
+            byte[] buffer = new byte[(int) Math.min(n, READ_BUFFER_SIZE)];
+            long skipped = 0L;
+            while (skipped < n) {
+                int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (count == -1) {
+                    
+                    break;
+                }
+                skipped += count;
+            }
+            
+            return skipped;
+        }
+        
+        @Override
+        public boolean markSupported() {
+            
+            return false;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (ended && !finished) { // The whole stream was read but its chunks have not been recorded yet...
+                finished = true;
+                chunker.finish();
+            }
+            super.close();
+        }
+    }
+}
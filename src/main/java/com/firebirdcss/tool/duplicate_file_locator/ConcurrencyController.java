@@ -0,0 +1,203 @@
+package com.firebirdcss.tool.duplicate_file_locator;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
+import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
+
+/**
+ * This class is the Concurrency Controller.
+ * It keeps count of the files and bytes which have been hashed and, when adaptive concurrency is
+ * enabled, limits how many threads may hash files at the same time. The limit is tuned while the
+ * scan runs by measuring throughput and using additive-increase, multiplicative-decrease between
+ * {@link Settings#minHashThreads} and {@link Settings#maxHashThreads}.
+ * <p>
+ * Each interval the limit is raised by one thread for as long as throughput keeps up. When
+ * throughput drops, a quarter of the limit is taken away at once so that an overloaded disk
+ * recovers quickly, after which the limit begins climbing again. Intervals in which the hashing
+ * threads never had to wait for the limit are ignored, as the limit was not what held them back.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class ConcurrencyController {
+    private ConcurrencyController() {} // Prevent instantiation
+    
+    private static final long INTERVAL_MILLIS = 2000L;
+    private static final long FILE_COST_BYTES = 64L * 1024L; // <-- Opening a file costs about as much as reading this many bytes...
+    private static final double TOLERANCE = 0.05;
+    
+    private static final Object lock = new Object();
+    private static final LongAdder bytesHashed = new LongAdder();
+    private static final LongAdder filesHashed = new LongAdder();
+    
+    private static int limit = Integer.MAX_VALUE;
+    private static int active = 0;
+    private static boolean saturated = false;
+    
+    private static double lastScore = -1.0;
+    private static long lastBytes = 0L;
+    private static long lastFiles = 0L;
+    private static long lastTime = 0L;
+    private static ScheduledExecutorService controlService = null;
+    
+    /**
+     * This method starts the tuning of the hashing concurrency, if adaptive concurrency is enabled.
+     */
+    public static void start() {
+        if (!Settings.adaptiveConcurrency) { // Nothing to tune...
+            
+            return;
+        }
+        
+        synchronized (lock) {
+            limit = Math.max(Settings.minHashThreads, Math.min(Settings.maxHashThreads, Runtime.getRuntime().availableProcessors()));
+        }
+        lastTime = System.nanoTime();
+        controlService = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "concurrency-controller");
+            t.setDaemon(true);
+            
+            return t;
+        });
+        controlService.scheduleAtFixedRate(ConcurrencyController::adjust, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * This method stops the tuning of the hashing concurrency and reports the level it settled on.
+     */
+    public static void stop() {
+        if (controlService == null) { // Was never started...
+            
+            return;
+        }
+        
+        controlService.shutdownNow();
+        controlService = null;
+        synchronized (lock) {
+            System.out.println("Hashing concurrency settled at " + limit + " thread(s).");
+            limit = Integer.MAX_VALUE;
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * This method must be called before a file is hashed, it waits until the number of
+     * threads hashing files is below the current limit. Without adaptive concurrency there
+     * is no limit, so nothing is done.
+     */
+    public static void beginHash() {
+        if (!Settings.adaptiveConcurrency) { // No limit to wait for...
+            
+            return;
+        }
+        
+        synchronized (lock) {
+            while (active >= limit) { // Too many threads are hashing...
+                saturated = true;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    
+                    break; // <-- The application is shutting-down...
+                }
+            }
+            active++;
+        }
+    }
+    
+    /**
+     * This method must be called once a file has been hashed, whether or not hashing succeeded.
+     * 
+     * @param bytes - The number of bytes which were hashed as <code>long</code>
+     */
+    public static void endHash(long bytes) {
+        endHash(bytes, 1);
+    }
+    
+    /**
+     * This method must be called once a batch of files hashed under a single call to
+     * {@link #beginHash()} has been hashed.
+     * 
+     * @param bytes - The number of bytes which were hashed as <code>long</code>
+     * @param files - The number of files which were hashed as <code>int</code>
+     */
+    public static void endHash(long bytes, int files) {
+        bytesHashed.add(bytes);
+        filesHashed.add(files);
+        if (!Settings.adaptiveConcurrency) { // No limit was taken...
+            
+            return;
+        }
+        
+        synchronized (lock) {
+            active--;
+            lock.notify();
+        }
+    }
+    
+    /**
+     * This method returns the total number of bytes hashed so far.
+     * 
+     * @return Returns the number of bytes as <code>long</code>
+     */
+    public static long getBytesHashed() {
+        
+        return bytesHashed.sum();
+    }
+    
+    /**
+     * This method returns the total number of files hashed so far.
+     * 
+     * @return Returns the number of files as <code>long</code>
+     */
+    public static long getFilesHashed() {
+        
+        return filesHashed.sum();
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Measures the throughput of the last interval and moves the limit accordingly.
+     */
+    private static void adjust() {
+        long now = System.nanoTime();
+        long bytes = bytesHashed.sum();
+        long files = filesHashed.sum();
+        double seconds = (now - lastTime) / 1_000_000_000.0;
+        double bytesPerSecond = (bytes - lastBytes) / seconds;
+        double filesPerSecond = (files - lastFiles) / seconds;
+        double score = bytesPerSecond + filesPerSecond * FILE_COST_BYTES;
+        lastTime = now;
+        lastBytes = bytes;
+        lastFiles = files;
+        
+        synchronized (lock) {
+            if (!saturated) { // Threads did not wait, so the limit did not matter...
+                lastScore = score;
+                
+                return;
+            }
+            saturated = false;
+            
+            int newLimit = limit + 1;
+            if (lastScore >= 0.0 && score < lastScore * (1.0 - TOLERANCE)) { // Throughput got worse...
+                newLimit = limit - Math.max(1, limit / 4);
+            }
+            lastScore = score;
+            
+            newLimit = Math.max(Settings.minHashThreads, Math.min(Settings.maxHashThreads, newLimit));
+            if (newLimit != limit) { // Limit has changed...
+                limit = newLimit;
+                lock.notifyAll();
+                System.out.println("Hashing concurrency set to " + limit + " thread(s); " + Utilities.humanReadableSize((long) bytesPerSecond) + "/s, " + (long) filesPerSecond + " files/s");
+            }
+        }
+    }
+}
@@ -3,19 +3,29 @@ package com.firebirdcss.tool.duplicate_file_locator;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import com.firebirdcss.tool.duplicate_file_locator.data.DirectoryClaim;
+import com.firebirdcss.tool.duplicate_file_locator.data.DuplicateGroup;
 import com.firebirdcss.tool.duplicate_file_locator.data.ScanType;
 import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
+import com.firebirdcss.tool.duplicate_file_locator.data.SizeSketch;
+import com.firebirdcss.tool.duplicate_file_locator.util.TreeHasher;
 import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
 
 /**
@@ -30,8 +40,18 @@ import com.firebirdcss.tool.duplicate_file_locator.util.Utilities;
  */
 public class DirectoryProcessor implements Runnable {
     private static final ExecutorService execService = Executors.newFixedThreadPool(100);
-    private static final Map<String/*FileHash*/, ArrayList<String/*FilePath*/>> processedFiles = new HashMap<>();;
+    private static final Map<String/*FileHash*/, DuplicateGroup> processedFiles = new ConcurrentHashMap<>();
+    private static final Map<String/*DirPath*/, ScanType> pendingDirectories = new ConcurrentHashMap<>();
+    private static final Set<String/*DirPath*/> completedDirectories = ConcurrentHashMap.newKeySet();
+    private static final Map<Object/*DirKey*/, ScanType> visitedDirectories = new ConcurrentHashMap<>();
+    private static final Map<String/*RealPath*/, DirectoryClaim> claimedDirectories = new ConcurrentHashMap<>();
+    private static final Map<Object/*DirKey*/, String/*DirPath*/> reservedDirectories = new ConcurrentHashMap<>();
+    private static final Set<String/*FilePath*/> restoredFiles = ConcurrentHashMap.newKeySet();
     private static List<String> exclusionPatterns = null;
+    private static volatile SizeSketch sizeSketch = null;
+    private static volatile boolean sizingPass = false;
+    private static final Object runningLock = new Object();
+    private static int runningProcessors = 0;
     
     private final ArrayList<DirectoryProcessor> subTasks = new ArrayList<>();
     
@@ -52,6 +72,12 @@ public class DirectoryProcessor implements Runnable {
     public DirectoryProcessor (String scanPath, ScanType scanType) {
         this.scanPath = scanPath;
         this.scanType = scanType;
+        synchronized (pendingDirectories) {
+            pendingDirectories.put(scanPath, scanType);
+        }
+        synchronized (runningLock) {
+            runningProcessors++;
+        }
         
         if (exclusionPatterns == null) {
             exclusionPatterns = Arrays.asList(Settings.exemptPatterns.toArray(new String[] {}));
@@ -75,6 +101,21 @@ public class DirectoryProcessor implements Runnable {
         return subTasks.stream().anyMatch(t -> t.isScanning() == true);
     }
     
+    /**
+     * This method blocks until every {@link DirectoryProcessor} created so far, along with the
+     * sub-tasks each of them starts, has finished running. It returns as soon as the last one
+     * finishes, so that the time taken by a scan can be measured precisely.
+     * 
+     * @throws InterruptedException Indicates the waiting thread was interrupted.
+     */
+    public static void awaitScanning() throws InterruptedException {
+        synchronized (runningLock) {
+            while (runningProcessors > 0) { // At least one process is running...
+                runningLock.wait();
+            }
+        }
+    }
+    
     /**
      * This method is used to shutdown the scanning process of this {@link DirectoryProcessor} instance
      * and all of its sub-tasks.
@@ -107,21 +148,146 @@ public class DirectoryProcessor implements Runnable {
      * This method can be used to fetch the scanning results at any-time during or 
      * after the scanning process. One should check the {@link isScanning} method to 
      * ensure that the scanning has stopped if they want the final results of the scan.
+     * <p>
+     * The groups of duplicate files are returned in order of the most wasted space first. Those
+     * kept in order during the scan are ready at once, while any beyond them are only found, in
+     * pages of growing size, if the returned {@link Iterator} is advanced past them.
      * 
-     * @return Returns a {@link Map} that is keyed by the File Hash as a {@link String}, where 
-     * the value of the Map is an {@link ArrayList} of type {@link String} and the Strings are 
-     * the absolute paths of files which are duplicates.
+     * @return Returns an {@link Iterator} of {@link DuplicateGroup}s, each holding the 
+     * absolute paths of files which are duplicates.
      */
-    public Map<String/*FileHash*/, ArrayList<String/*FilePath*/>> getResults() {
-        Map<String, ArrayList<String>> results = new HashMap<>();
+    public static Iterator<DuplicateGroup> getResults() {
         
-        for (Entry<String, ArrayList<String>> e : processedFiles.entrySet()) { // Iterate processed file scan results...
-            if (e.getValue().size() > 1) { // Processed file has duplicates...
-                results.put(e.getKey(), e.getValue());
-            }
+        return ResultRanker.iterator(processedFiles);
+    }
+    
+    /**
+     * This method starts the first pass of a two pass scan. Until {@link #beginHashingPass()} is
+     * called, the processors only count the sizes of the files they find, without hashing or
+     * keeping any of them.
+     */
+    static void beginSizingPass() {
+        sizeSketch = new SizeSketch(Settings.sketchSize);
+        sizingPass = true;
+    }
+    
+    /**
+     * This method ends the first pass of a two pass scan, such that the same directories may be
+     * scanned again and only the files whose size may be shared with another file are hashed.
+     */
+    static void beginHashingPass() {
+        sizingPass = false;
+        visitedDirectories.clear();
+        reservedDirectories.clear();
+        synchronized (pendingDirectories) {
+            pendingDirectories.clear();
+            completedDirectories.clear();
+            claimedDirectories.clear();
+        }
+    }
+    
+    /**
+     * This method returns the sizes counted during the first pass of a two pass scan.
+     * 
+     * @return Returns the {@link SizeSketch}, or null if this is not a two pass scan
+     */
+    static SizeSketch getSizeSketch() {
+        
+        return sizeSketch;
+    }
+    
+    /**
+     * This method sets the sizes counted during the first pass of a two pass scan, such as when
+     * resuming the second pass.
+     * 
+     * @param sketch - The sizes counted as {@link SizeSketch}
+     */
+    static void setSizeSketch(SizeSketch sketch) {
+        sizeSketch = sketch;
+    }
+    
+    /**
+     * This method is used to determine if the given file must be read whatever its size, such
+     * as when it is an archive whose entries are wanted or chunk analysis is enabled.
+     * 
+     * @param file - The file as {@link File}
+     * 
+     * @return Returns a <code>boolean</code> true if the file must be read, otherwise false.
+     */
+    static boolean requiresRead(File file) {
+        
+        return Settings.chunkAnalysis || (Settings.scanArchives && ArchiveScanner.isArchive(file.getName()));
+    }
+    
+    /**
+     * This method returns a copy of the directories which have been queued for scanning
+     * but have not yet completed, along with the type of scan each is to receive. The copy
+     * is taken while no directory is able to start or complete, so that it is consistent.
+     * 
+     * @return Returns a {@link Map} of directory path as {@link String} to {@link ScanType}
+     */
+    static Map<String/*DirPath*/, ScanType> getPendingDirectories() {
+        synchronized (pendingDirectories) {
+            
+            return new HashMap<>(pendingDirectories);
         }
+    }
+    
+    /**
+     * This method returns the directories whose files have all been processed.
+     * 
+     * @return Returns a {@link Set} of directory paths as {@link String}
+     */
+    static Set<String/*DirPath*/> getCompletedDirectories() {
+        
+        return completedDirectories;
+    }
+    
+    /**
+     * This method returns the claims made on physical directories so far, each naming the path
+     * under which the directory's files are indexed, such that the directories can be recognized
+     * when reached through another path after the scan is resumed.
+     * 
+     * @return Returns a {@link Collection} of {@link DirectoryClaim}s
+     */
+    static Collection<DirectoryClaim> getClaimedDirectories() {
+        
+        return claimedDirectories.values();
+    }
+    
+    /**
+     * This method restores a claim made on a physical directory before the scan was resumed. The
+     * directory's key is rebuilt from its real path, and the directory is reserved for the path
+     * which claimed it, so that its files are never indexed under another path leading to it.
+     * 
+     * @param claim - The claim as {@link DirectoryClaim}
+     */
+    static void restoreClaimedDirectory(DirectoryClaim claim) {
+        Object key = directoryKey(new File(claim.getRealPath()));
+        claimedDirectories.put(claim.getRealPath(), claim);
+        visitedDirectories.merge(key, claim.getScanType(), DirectoryProcessor::widerScan);
+        reservedDirectories.put(key, claim.getPath());
+    }
+    
+    /**
+     * This method records a file of a pending directory which was indexed before the scan was
+     * resumed, such that it is not hashed again when the directory is scanned again.
+     * 
+     * @param path - The path of the file as {@link String}
+     */
+    static void restoreIndexedFile(String path) {
+        restoredFiles.add(path);
+    }
+    
+    /**
+     * This method returns every hash seen so far along with the group of paths having that hash,
+     * including hashes seen only once.
+     * 
+     * @return Returns a {@link Map} of file hash as {@link String} to {@link DuplicateGroup}
+     */
+    static Map<String/*FileHash*/, DuplicateGroup> getProcessedFiles() {
         
-        return results;
+        return processedFiles;
     }
     
     /*
@@ -134,18 +300,77 @@ public class DirectoryProcessor implements Runnable {
         System.out.println("Scanning directory: " + this.scanPath);
         File rootDir = new File(this.scanPath);
         if (isRunning && rootDir.exists() && rootDir.canRead() && rootDir.isDirectory()) { // Application is running and the root path is a directory that can be processed...
-            File[] fileList = rootDir.listFiles();
+            /* Claim the physical directory so it is only listed once across all paths leading to it */
+            Object key = directoryKey(rootDir);
+            ScanType prior;
+            if (reservedDirectories.remove(key, this.scanPath)) { // Directory was claimed through this path before the scan was resumed...
+                visitedDirectories.merge(key, this.scanType, DirectoryProcessor::widerScan);
+                prior = null;
+            } else {
+                prior = visitedDirectories.putIfAbsent(key, this.scanType);
+            }
+            boolean processFiles = (prior == null);
+            boolean processSubDirectories = processFiles || (prior == ScanType.LOCAL_SCAN && this.scanType == ScanType.FULL_SCAN && visitedDirectories.replace(key, ScanType.LOCAL_SCAN, ScanType.FULL_SCAN));
+            if (processFiles) { // Record the claim before any file is indexed under this path...
+                DirectoryClaim claim = new DirectoryClaim(this.scanPath, Utilities.toRealPath(this.scanPath), this.scanType);
+                claimedDirectories.put(claim.getRealPath(), claim);
+                Checkpointer.logClaim(claim);
+            }
+            
+            File[] fileList = (processSubDirectories ? rootDir.listFiles() : null);
+            if (!processSubDirectories) { // Directory was already scanned through another path...
+                System.out.println("Skipping directory already scanned through another path: " + this.scanPath);
+            }
             if (isRunning && fileList != null) { // Application is running and there is a file list to process...
                 for (File item : fileList) { // Iterate the list of files and directories in current path...
                     if (isRunning) {
                         if (Utilities.allowScan(item.getAbsolutePath(), exclusionPatterns)) {
-                            if (item.isDirectory() && this.scanType == ScanType.FULL_SCAN && item.canRead()) { // Item is a directory, can be read and scan type is Full Scan...
+                            /* Read the item's attributes once, all further decisions are based on them */
+                            BasicFileAttributes attrs;
+                            try {
+                                attrs = Files.readAttributes(item.toPath(), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                                if (attrs.isSymbolicLink()) { // Only links to directories are followed, as those are only scanned once...
+                                    attrs = Files.readAttributes(item.toPath(), BasicFileAttributes.class);
+                                    if (!attrs.isDirectory()) { // Link to a file would be reported as a duplicate of its target...
+                                        
+                                        continue;
+                                    }
+                                }
+                            } catch (IOException e) { // Item vanished or is a broken link...
+                                
+                                continue;
+                            }
+                            
+                            if (attrs.isDirectory() && this.scanType == ScanType.FULL_SCAN && item.canRead()) { // Item is a directory, can be read and scan type is Full Scan...
+                                if (pendingDirectories.containsKey(item.getAbsolutePath()) || completedDirectories.contains(item.getAbsolutePath())) { // Directory is already known, such as when resuming...
+                                    
+                                    continue;
+                                }
                                 DirectoryProcessor dp = new DirectoryProcessor(item.getAbsolutePath(), this.scanType);
                                 execService.execute(dp);
                                 this.subTasks.add(dp);
-                            } else if (item.isFile() && item.canRead()) { // Item is a file and can be read...
+                            } else if (!processFiles) { // Files of this directory were already processed by a local scan...
+                                
+                                continue;
+                            } else if (!attrs.isRegularFile() || !Utilities.allowFile(item.getName(), attrs)) { // Item is not a file or is filtered out...
+                                
+                                continue;
+                            } else if (sizingPass) { // Only the size of the file is wanted on this pass...
+                                sizeSketch.add(attrs.size());
+                                if (Settings.scanArchives && ArchiveScanner.isArchive(item.getName())) { // Entries may duplicate other files...
+                                    ArchiveScanner.forEachEntrySize(item, sizeSketch::add);
+                                }
+                            } else if (!restoredFiles.isEmpty() && restoredFiles.remove(item.getAbsolutePath())) { // File was indexed before the scan was resumed...
+                                
+                                continue;
+                            } else if (sizeSketch != null && !sizeSketch.mayRepeat(attrs.size()) && !requiresRead(item)) { // No other file has this size...
+                                
+                                continue;
+                            } else if (item.canRead() && Settings.orderedReads) { // Item is a file to be read later in disk order...
+                                ReadScheduler.submit(item, attrs.size());
+                            } else if (item.canRead()) { // Item is a file and can be read...
                                 try { // Try to process the given file...
-                                    processFile(item);
+                                    processFile(item, attrs.size());
                                 } catch (NoSuchAlgorithmException | IOException e) {
                                     System.out.println("ERROR: An error occurred while processing the file '" + item.getAbsolutePath() + "'");
                                 }
@@ -157,6 +382,7 @@ public class DirectoryProcessor implements Runnable {
                     }
                 }
             }
+            SmallFileHasher.flush(); // <-- Files must be indexed before the directory is complete...
             if (isRunning) {
                 System.out.println("Scanning of directory complete: " + this.scanPath);
             }
@@ -165,11 +391,89 @@ public class DirectoryProcessor implements Runnable {
                 System.out.println("ERROR: The supplied directory is not valid; Check to ensure it exists and that it is readable by the process!\n\tDirectory: '" + rootDir.getAbsolutePath() + "'");
             }
         }
+        if (isRunning) { // Directory was not interrupted so its work is complete...
+            synchronized (pendingDirectories) {
+                completedDirectories.add(this.scanPath);
+                pendingDirectories.remove(this.scanPath);
+                Checkpointer.logCompleted(this.scanPath);
+            }
+        }
         isRunning = false;
+        synchronized (runningLock) {
+            runningProcessors--;
+            runningLock.notifyAll();
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Returns the wider of the two given types of scan, a full scan covering everything a local
+     * scan does.
+     * 
+     * @param a - The first type of scan as {@link ScanType}
+     * @param b - The second type of scan as {@link ScanType}
+     * 
+     * @return Returns the wider {@link ScanType}
+     */
+    private static ScanType widerScan(ScanType a, ScanType b) {
+        
+        return (a == ScanType.FULL_SCAN ? a : b);
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method returns a key which identifies the physical directory that the given
+     * directory refers to, no matter which path was used to reach it. Where the file system
+     * does not provide a file key, the directory's real path is used instead.
+     * 
+     * @param dir - The directory as {@link File}
+     * 
+     * @return Returns the key as an {@link Object} suitable for use in a set
+     */
+    private static Object directoryKey(File dir) {
+        try {
+            Object key = Files.readAttributes(dir.toPath(), BasicFileAttributes.class).fileKey();
+            if (key != null) { // File system identifies the directory...
+                
+                return key;
+            }
+        } catch (IOException e) {
+            // Fall back to the real path...
+        }
+        
+        return Utilities.toRealPath(dir.getPath());
+    }
+    
+    /**
+     * This method is used to process and store the information for the given file, using the
+     * {@link SmallFileHasher} where the file is small enough and needs nothing more than its hash.
+     * Small files are indexed in batches, so {@link SmallFileHasher#flush()} must be called once
+     * the calling thread has no more files to process.
+     * 
+     * @param file - The file to process as {@link File}
+     * @param size - The size of the file as <code>long</code>
+     * 
+     * @throws FileNotFoundException Indicates that the file is missing and cannot be found to process.
+     * @throws NoSuchAlgorithmException Indicates that the JVM doesn't have the ability to hash the file.
+     * @throws IOException Indicates a problem while reading the file for processing.
+     */
+    static void processFile(File file, long size) throws FileNotFoundException, NoSuchAlgorithmException, IOException {
+        if (SmallFileHasher.isSmall(size) && !requiresRead(file)) { // File only needs its hash...
+            try {
+                if (SmallFileHasher.hash(file)) { // File was hashed...
+                    
+                    return;
+                }
+            } catch (IOException e) {
+                // Fall back to the regular path, which retries...
+            }
+        }
+        
+        SmallFileHasher.flush(); // <-- Gives back any hashing slot held for small files before taking another...
+        processFile(file);
     }
     
     /**
-     * PRIVATE METHOD:
      * This method is used to process and store the information for the given file.
      * 
      * @param file - The file to process as {@link File}
@@ -178,35 +482,111 @@ public class DirectoryProcessor implements Runnable {
      * @throws NoSuchAlgorithmException Indicates that the JVM doesn't have the ability to hash the file.
      * @throws IOException Indicates a problem while reading the file for processing.
      */
-    private void processFile(File file) throws FileNotFoundException, NoSuchAlgorithmException, IOException {
+    static void processFile(File file) throws FileNotFoundException, NoSuchAlgorithmException, IOException {
         String fileHash = null;
+        long fileSize = 0L;
         
         /* Attempt to hash the file */
+        ConcurrencyController.beginHash();
         try {
-            fileHash = Utilities.hashFile(file);
-        } catch(IOException e) {
-            if (file.exists() && file.canRead()) {
-                try {
-                    fileHash = Utilities.hashFile(file);
-                } catch(IOException e1) {
-                    System.out.println("ERROR: Tried to process the given file but failed twice; Moving on to next file!\n\tGiven File: '" + file.getAbsolutePath() + "'");
-                    
-                    return;
+            try {
+                fileHash = hashFile(file);
+            } catch(IOException e) {
+                if (file.exists() && file.canRead()) {
+                    try {
+                        fileHash = hashFile(file);
+                    } catch(IOException e1) {
+                        System.out.println("ERROR: Tried to process the given file but failed twice; Moving on to next file!\n\tGiven File: '" + file.getAbsolutePath() + "'");
+                        
+                        return;
+                    }
                 }
             }
+        } finally {
+            if (fileHash != null) { // File was hashed...
+                fileSize = file.length();
+            }
+            ConcurrencyController.endHash(fileSize);
         }
         
         /* Log the file path based on its hash */
         if (fileHash != null) {  // There is a file hash...
-            if (processedFiles.containsKey(fileHash)) { // Hash has already been seen before...
-                if (!processedFiles.get(fileHash).contains(file.getAbsolutePath())) { // The path is unique...
-                    processedFiles.get(fileHash).add(file.getAbsolutePath());
-                }
-            } else { // This is the first time the hash has been seen...
-                ArrayList<String> paths = new ArrayList<>();
-                paths.add(file.getAbsolutePath());
-                processedFiles.put(fileHash, paths);
+            indexFile(fileHash, file.getAbsolutePath(), fileSize);
+        }
+    }
+    
+    /**
+     * This method is used to store the given path under the given hash, such that it
+     * is reported along with any other paths having the same hash. Once a hash has more
+     * than one path, the space its group wastes is handed to the {@link ResultRanker}.
+     * 
+     * @param fileHash - The hash of the file as {@link String}
+     * @param path - The real path of a file, or virtual path of an archive entry, as {@link String}
+     * @param fileSize - The size of the file as <code>long</code>
+     */
+    static void indexFile(String fileHash, String path, long fileSize) {
+        DuplicateGroup group = processedFiles.computeIfAbsent(fileHash, k -> new DuplicateGroup(k, fileSize));
+        boolean added;
+        synchronized (group) {
+            added = group.addPath(path);
+            if (added && group.getCopies() > 1) { // The path is unique and the file has duplicates...
+                ResultRanker.offer(fileHash, group.getWastedBytes());
             }
         }
+        if (added) { // Path is new, so it must be saved by the next checkpoint...
+            Checkpointer.logFile(fileHash, path, fileSize);
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method is used to store an entry found inside of an archive, unless the entry is
+     * filtered out by its size or extension, or the sizes counted by the first pass of a two
+     * pass scan show that nothing else shares the entry's size.
+     * 
+     * @param hash - The hash of the entry as {@link String}
+     * @param path - The virtual path of the entry as {@link String}
+     * @param size - The size of the entry as <code>long</code>
+     */
+    private static void indexEntry(String hash, String path, long size) {
+        if (!Utilities.allowEntry(path.substring(path.lastIndexOf('/') + 1), size)) { // Entry is filtered out...
+            
+            return;
+        }
+        if (sizeSketch != null && !sizeSketch.mayRepeat(size)) { // No other file or entry has this size...
+            
+            return;
+        }
+        
+        indexFile(hash, path, size);
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method is used to hash the given file using the method appropriate for the
+     * current settings, such that the file is only read once even when it is also
+     * being analyzed at the chunk level or is an archive whose entries are being indexed.
+     * 
+     * @param file - The file to hash as {@link File}
+     * 
+     * @return Returns the file's hash as a {@link String}
+     * 
+     * @throws FileNotFoundException Indicates that the file is missing and cannot be found to process.
+     * @throws NoSuchAlgorithmException Indicates that the JVM doesn't have the ability to hash the file.
+     * @throws IOException Indicates a problem while reading the file for processing.
+     */
+    private static String hashFile(File file) throws FileNotFoundException, NoSuchAlgorithmException, IOException {
+        if (Settings.scanArchives && ArchiveScanner.isArchive(file.getName())) { // File is an archive whose entries are wanted...
+            
+            return ArchiveScanner.hashArchive(file, DirectoryProcessor::indexEntry);
+        } else if (Settings.chunkAnalysis) { // Chunk analysis is enabled...
+            
+            return ChunkAnalyzer.hashAndChunkFile(file);
+        } else if (TreeHasher.useTreeHash(file.length())) { // File is large enough to hash on many threads...
+            
+            return TreeHasher.hashFile(file);
+        }
+        
+        return Utilities.hashFile(file);
     }
 }
@@ -0,0 +1,198 @@
+package com.firebirdcss.tool.duplicate_file_locator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
+
+/**
+ * This class is the Read Scheduler.
+ * When ordered reads are enabled the {@link DirectoryProcessor}s hand the files they find to
+ * this class instead of hashing them right away. Once all directories have been listed, only
+ * the files which could have a duplicate are hashed, and they are read in the order they are
+ * most likely laid out on disk, so that spinning disks spend less time seeking.
+ * <p>
+ * Physical locality is approximated by sorting on device and then inode number where the
+ * platform makes them available, falling back to the file's path where it does not. The sorted
+ * files are split into batches which are handed out in order to a configurable number of threads.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class ReadScheduler {
+    private ReadScheduler() {} // Prevent instantiation
+    
+    private static final int BATCH_SIZE = 256;
+    
+    private static final ConcurrentLinkedQueue<Candidate> candidates = new ConcurrentLinkedQueue<>();
+    private static final Set<Candidate> unfinished = ConcurrentHashMap.newKeySet();
+    private static final Map<Long/*FileSize*/, AtomicInteger/*FileCount*/> sizeCounts = new ConcurrentHashMap<>();
+    private static volatile boolean inodesSupported = true;
+    
+    /**
+     * This method records the given file as one which may need to be hashed once all
+     * directories have been listed. When archives are being scanned the sizes of an archive's
+     * entries are counted as well, so that a file sharing its size only with an entry is still read.
+     * 
+     * @param file - The file to schedule as {@link File}
+     * @param size - The size of the file as <code>long</code>
+     */
+    public static void submit(File file, long size) {
+        Candidate c = new Candidate(file, size);
+        candidates.add(c);
+        countSize(c.size);
+        if (Settings.scanArchives && ArchiveScanner.isArchive(file.getName())) { // Entries may duplicate loose files...
+            ArchiveScanner.forEachEntrySize(file, ReadScheduler::countSize);
+        }
+    }
+    
+    /**
+     * This method records the given file, restored from a checkpoint, as one which has already
+     * passed size filtering and so is hashed no matter how many other files share its size. The
+     * files sharing its size may well have been hashed before the checkpoint was written.
+     * 
+     * @param file - The file to schedule as {@link File}
+     * @param size - The size of the file as <code>long</code>
+     */
+    static void resubmit(File file, long size) {
+        Candidate c = new Candidate(file, size);
+        c.filtered = true;
+        candidates.add(c);
+        countSize(c.size);
+    }
+    
+    /**
+     * This method adds the paths of all scheduled files which have not yet been processed to
+     * the given lists, depending on whether or not they have passed size filtering. A path may
+     * be listed more than once while files are being moved between queues.
+     * 
+     * @param listedFiles - The {@link List} to add the files still waiting for size filtering to
+     * @param filteredFiles - The {@link List} to add the files which have passed size filtering to
+     */
+    static void getPendingFiles(List<String/*FilePath*/> listedFiles, List<String/*FilePath*/> filteredFiles) {
+        synchronized (unfinished) {
+            for (Candidate c : unfinished) { // Files taken for hashing but not yet done...
+                filteredFiles.add(c.file.getPath());
+            }
+            for (Candidate c : candidates) { // Files still waiting for the listing to complete...
+                (c.filtered ? filteredFiles : listedFiles).add(c.file.getPath());
+            }
+        }
+    }
+    
+    /**
+     * This method hashes all of the scheduled files which survive size filtering, in locality
+     * order, using the number of threads set in {@link Settings#readThreads}. It returns once
+     * every file has been processed.
+     */
+    public static void hashCandidates() {
+        /* Keep only the files which could have a duplicate */
+        List<Candidate> toRead = new ArrayList<>();
+        synchronized (unfinished) { // Keeps the files visible to checkpoints while they are moved...
+            Candidate c;
+            while ((c = candidates.poll()) != null) { // Drain the scheduled files...
+                if (c.filtered || DirectoryProcessor.requiresRead(c.file) || sizeCounts.get(Long.valueOf(c.size)).get() > 1) { // File passed filtering before, must be read or shares its size...
+                    toRead.add(c);
+                    unfinished.add(c);
+                }
+            }
+        }
+        sizeCounts.clear();
+        
+        /* Order the files by where they are likely to be on disk */
+        toRead.sort(Comparator.<Candidate>comparingLong(x -> x.device).thenComparingLong(x -> x.inode).thenComparing(x -> x.file.getPath()));
+        
+        /* Split the ordered files into batches */
+        ConcurrentLinkedQueue<List<Candidate>> batches = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < toRead.size(); i += BATCH_SIZE) {
+            batches.add(toRead.subList(i, Math.min(toRead.size(), i + BATCH_SIZE)));
+        }
+        
+        int threads = (Settings.adaptiveConcurrency ? Settings.maxHashThreads : Settings.readThreads); // <-- Adaptive concurrency limits how many are active...
+        System.out.println("Hashing " + toRead.size() + " candidate files in disk order using " + (Settings.adaptiveConcurrency ? "up to " : "") + threads + " thread(s)...");
+        
+        /* Hand the batches out to the readers in order */
+        ExecutorService readService = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            readService.execute(() -> {
+                List<Candidate> batch;
+                while ((batch = batches.poll()) != null) { // Take the next batch in order...
+                    for (Candidate item : batch) {
+                        try { // Try to process the given file...
+                            DirectoryProcessor.processFile(item.file, item.size);
+                        } catch (NoSuchAlgorithmException | IOException e) {
+                            System.out.println("ERROR: An error occurred while processing the file '" + item.file.getAbsolutePath() + "'");
+                        }
+                    }
+                    SmallFileHasher.flush(); // <-- Files must be indexed before they stop being pending...
+                    unfinished.removeAll(batch);
+                }
+            });
+        }
+        readService.shutdown();
+        
+        /* Wait for all readers to finish */
+        boolean done = false;
+        while (!done) {
+            try {
+                done = readService.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Do nothing...
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method counts one more file or archive entry of the given size.
+     * 
+     * @param size - The size as <code>long</code>
+     */
+    private static void countSize(long size) {
+        sizeCounts.computeIfAbsent(Long.valueOf(size), k -> new AtomicInteger()).incrementAndGet();
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * A file waiting to be read along with what is known about where it lives.
+     */
+    private static class Candidate {
+        private final File file;
+        private final long size;
+        private long device = 0L;
+        private long inode = 0L;
+        private boolean filtered = false;
+        
+        Candidate(File file, long size) {
+            this.file = file;
+            this.size = size;
+            
+            if (inodesSupported) { // Platform may expose device and inode numbers...
+                try {
+                    Map<String, Object> attrs = Files.readAttributes(file.toPath(), "unix:dev,ino");
+                    this.device = ((Number) attrs.get("dev")).longValue();
+                    this.inode = ((Number) attrs.get("ino")).longValue();
+                } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                    inodesSupported = false; // <-- Fall back to path order from now on...
+                } catch (IOException e) {
+                    // Leave this file to be ordered by path...
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.firebirdcss.tool.duplicate_file_locator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import com.firebirdcss.tool.duplicate_file_locator.data.DuplicateGroup;
+
+/**
+ * This class is the Result Ranker.
+ * It orders the groups of duplicate files by the space they waste, such that the results
+ * can be reviewed starting with the groups where the most space is to be reclaimed.
+ * <p>
+ * While the scan runs, the {@link #TOP_SIZE} groups wasting the most space are kept in order
+ * as files are indexed, so the first results are ready as soon as the scan completes. Results
+ * beyond those are found a page at a time by passing over the groups and keeping only the best
+ * page worth, so the groups are never copied or sorted all at once. Each page is twice the size
+ * of the one before it, so that following every result takes a number of passes which only grows
+ * with the logarithm of the number of groups.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class ResultRanker {
+    private ResultRanker() {} // Prevent instantiation
+    
+    /**
+     * The number of groups which are kept in order while the scan runs.
+     */
+    public static final int TOP_SIZE = 1000;
+    
+    /**
+     * The number of groups in the first page fetched once the top groups are used up.
+     */
+    public static final int PAGE_SIZE = 1000;
+    
+    private static final Comparator<Rank> ORDER = Comparator.<Rank>comparingLong(r -> r.wastedBytes).reversed().thenComparing(r -> r.hash);
+    
+    private static final TreeSet<Rank> top = new TreeSet<>(ORDER);
+    private static final Map<String/*FileHash*/, Rank> topByHash = new HashMap<>();
+    
+    /**
+     * This method records that the group having the given hash now wastes the given amount of space.
+     * It must be called every time a group gains a file, once the group has at least two files.
+     * 
+     * @param hash - The hash of the group as {@link String}
+     * @param wastedBytes - The space wasted by the group as <code>long</code>
+     */
+    static void offer(String hash, long wastedBytes) {
+        Rank rank = new Rank(hash, wastedBytes);
+        synchronized (top) {
+            Rank prior = topByHash.remove(hash);
+            if (prior != null) { // Group was already among the top, so move it...
+                top.remove(prior);
+            } else if (top.size() >= TOP_SIZE) { // Group must beat the lowest of the top...
+                Rank lowest = top.last();
+                if (ORDER.compare(rank, lowest) >= 0) { // Group does not make the cut...
+                    
+                    return;
+                }
+                top.remove(lowest);
+                topByHash.remove(lowest.hash);
+            }
+            top.add(rank);
+            topByHash.put(hash, rank);
+        }
+    }
+    
+    /**
+     * This method returns an {@link Iterator} over all duplicate groups, in order of most wasted
+     * space first. The groups kept in order during the scan are returned first, and only if the
+     * iteration continues past them are the rest of the groups fetched, in pages of growing size.
+     * 
+     * @param groups - All groups by their hash as a {@link Map} of {@link String} to {@link DuplicateGroup}
+     * 
+     * @return Returns an {@link Iterator} of {@link DuplicateGroup}
+     */
+    public static Iterator<DuplicateGroup> iterator(Map<String/*FileHash*/, DuplicateGroup> groups) {
+        List<Rank> first;
+        boolean complete;
+        synchronized (top) {
+            first = new ArrayList<>(top);
+            complete = (top.size() < TOP_SIZE); // <-- Below the cut there is nothing more to find...
+        }
+        
+        return new Iterator<DuplicateGroup>() {
+            private List<Rank> ranks = first;
+            private boolean rest = complete;
+            private int pageSize = PAGE_SIZE;
+            private int index = 0;
+            
+            @Override
+            public boolean hasNext() {
+                if (index == ranks.size() && !rest) { // Groups are used up and there may be more...
+                    ranks = rankAfter(groups, ranks.isEmpty() ? null : ranks.get(ranks.size() - 1), pageSize);
+                    rest = (ranks.size() < pageSize); // <-- A short page holds the last of the groups...
+                    pageSize = (int) Math.min(Integer.MAX_VALUE - 8, 2L * pageSize);
+                    index = 0;
+                }
+                
+                return index < ranks.size();
+            }
+            
+            @Override
+            public DuplicateGroup next() {
+                if (!hasNext()) {
+                    
+                    throw new NoSuchElementException();
+                }
+                
+                return groups.get(ranks.get(index++).hash);
+            }
+        };
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Finds the given number of duplicate groups which are ranked next after the given one, by
+     * passing over all of the groups once while keeping only the best of them.
+     * 
+     * @param groups - All groups by their hash as a {@link Map} of {@link String} to {@link DuplicateGroup}
+     * @param after - The last group already returned as {@link Rank}, or null if none were
+     * @param pageSize - The most groups to return as <code>int</code>
+     * 
+     * @return Returns the ordered {@link List} of {@link Rank}s, which is shorter than the page size once there are no more
+     */
+    private static List<Rank> rankAfter(Map<String/*FileHash*/, DuplicateGroup> groups, Rank after, int pageSize) {
+        PriorityQueue<Rank> best = new PriorityQueue<>(ORDER.reversed());
+        for (DuplicateGroup group : groups.values()) { // Iterate every group...
+            if (group.getCopies() < 2) continue;
+            Rank rank = new Rank(group.getHash(), group.getWastedBytes());
+            if (after != null && ORDER.compare(rank, after) <= 0) continue; // <-- Already returned...
+            if (best.size() < pageSize) { // Page has room...
+                best.add(rank);
+            } else if (ORDER.compare(rank, best.peek()) < 0) { // Group beats the worst of the page...
+                best.poll();
+                best.add(rank);
+            }
+        }
+        
+        List<Rank> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            results.add(best.poll());
+        }
+        Collections.reverse(results);
+        
+        return results;
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * The space wasted by a group at the time it was ranked.
+     */
+    private static class Rank {
+        private final String hash;
+        private final long wastedBytes;
+        
+        Rank(String hash, long wastedBytes) {
+            this.hash = hash;
+            this.wastedBytes = wastedBytes;
+        }
+    }
+}
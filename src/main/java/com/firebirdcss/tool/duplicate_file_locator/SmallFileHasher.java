@@ -0,0 +1,156 @@
+package com.firebirdcss.tool.duplicate_file_locator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.firebirdcss.tool.duplicate_file_locator.util.TreeHasher;
+
+/**
+ * This class is the Small File Hasher.
+ * It is a fast path for hashing files of up to {@link #SMALL_FILE_SIZE} bytes, where the cost
+ * of setting up to hash a file is far greater than the cost of reading it. Each thread keeps its
+ * own read buffer, digest and hex characters which are reused for every small file it hashes,
+ * and each file is read with a single read.
+ * <p>
+ * Rather than being stored one at a time, the hashed files are collected by each thread and
+ * handed to the index in batches. A thread holds one hashing slot of the {@link ConcurrencyController}
+ * for the whole batch, so that slot is only taken and given back once per batch. Any thread which
+ * hashes small files must call {@link #flush()} before hashing any other kind of file, and before
+ * its work is considered complete.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class SmallFileHasher {
+    private SmallFileHasher() {} // Prevent instantiation
+    
+    /**
+     * The size in bytes at or below which a file is hashed by the {@link SmallFileHasher}.
+     */
+    public static final int SMALL_FILE_SIZE = 64 * 1024;
+    
+    private static final int BATCH_SIZE = 128;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<Batch> batches = ThreadLocal.withInitial(Batch::new);
+    
+    /**
+     * This method is used to determine if a file of the given size is to be hashed by the
+     * {@link SmallFileHasher}.
+     * 
+     * @param size - The size of the file as <code>long</code>
+     * 
+     * @return Returns a <code>boolean</code> true if the file is small, otherwise false.
+     */
+    public static boolean isSmall(long size) {
+        
+        return size <= SMALL_FILE_SIZE && !TreeHasher.useTreeHash(size);
+    }
+    
+    /**
+     * This method hashes the given small file and adds it to the current thread's batch,
+     * which is handed to the index once it is full.
+     * 
+     * @param file - The file to hash as {@link File}
+     * 
+     * @return Returns a <code>boolean</code> true if the file was hashed, or false if it turned
+     * out not to be small, in which case it must be hashed some other way.
+     * 
+     * @throws IOException Indicates there was a problem while reading the file.
+     */
+    public static boolean hash(File file) throws IOException {
+        Batch b = batches.get();
+        if (!b.holdingSlot) { // First file of the batch...
+            ConcurrencyController.beginHash();
+            b.holdingSlot = true;
+        }
+        
+        /* Read the whole file at once, one extra byte shows if it has grown */
+        int count;
+        try (FileInputStream fis = new FileInputStream(file);) {
+            count = fis.readNBytes(b.buffer, 0, b.buffer.length);
+        }
+        if (count > SMALL_FILE_SIZE) { // File grew since it was listed...
+            
+            return false;
+        }
+        
+        /* Hash the file into the reused buffers */
+        b.digest.update(b.buffer, 0, count);
+        try {
+            b.digest.digest(b.hash, 0, b.hash.length);
+        } catch (DigestException e) { // Cannot happen as the hash buffer is the digest's length...
+            
+            throw new IllegalStateException(e);
+        }
+        for (int i = 0; i < b.hash.length; i++) {
+            b.hex[i * 2] = HEX[(b.hash[i] >> 4) & 0x0f];
+            b.hex[i * 2 + 1] = HEX[b.hash[i] & 0x0f];
+        }
+        
+        b.hashes[b.size] = new String(b.hex);
+        b.paths[b.size] = file.getAbsolutePath();
+        b.sizes[b.size] = count;
+        b.bytes += count;
+        b.size++;
+        if (b.size == BATCH_SIZE) { // Batch is full...
+            flush();
+        }
+        
+        return true;
+    }
+    
+    /**
+     * This method hands the current thread's batch of hashed files to the index and gives
+     * back the hashing slot held for the batch.
+     */
+    public static void flush() {
+        Batch b = batches.get();
+        for (int i = 0; i < b.size; i++) {
+            DirectoryProcessor.indexFile(b.hashes[i], b.paths[i], b.sizes[i]);
+            b.hashes[i] = null;
+            b.paths[i] = null;
+        }
+        
+        if (b.holdingSlot) { // Give back the slot taken for this batch...
+            ConcurrencyController.endHash(b.bytes, b.size);
+            b.holdingSlot = false;
+        }
+        b.size = 0;
+        b.bytes = 0L;
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * The reusable buffers and pending files of a single thread.
+     */
+    private static class Batch {
+        private final byte[] buffer = new byte[SMALL_FILE_SIZE + 1];
+        private final MessageDigest digest;
+        private final byte[] hash;
+        private final char[] hex;
+        private final String[] hashes = new String[BATCH_SIZE];
+        private final String[] paths = new String[BATCH_SIZE];
+        private final int[] sizes = new int[BATCH_SIZE];
+        
+        private int size = 0;
+        private long bytes = 0L;
+        private boolean holdingSlot = false;
+        
+        Batch() {
+            try {
+                this.digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) { // Every JVM is required to support MD5...
+                
+                throw new IllegalStateException(e);
+            }
+            this.hash = new byte[digest.getDigestLength()];
+            this.hex = new char[hash.length * 2];
+        }
+    }
+}
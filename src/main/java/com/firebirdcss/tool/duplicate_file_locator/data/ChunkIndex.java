@@ -0,0 +1,148 @@
+package com.firebirdcss.tool.duplicate_file_locator.data;
+
+/**
+ * This class is the Chunk Index object.
+ * It stores the fingerprints of content-defined chunks along with the id of the
+ * first file that was seen containing each one.
+ * <p>
+ * Rather than a {@link java.util.Map} of boxed objects, the index is made up of
+ * a number of independently locked stripes where each stripe is an open-addressing
+ * hash table backed by primitive arrays. Each slot takes 12 bytes and a table is doubled
+ * once it is more than 75% full, so each chunk costs between 16 and 32 bytes, while many
+ * threads are still able to add chunks at the same time.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class ChunkIndex {
+    private static final int STRIPE_COUNT = 64;
+    private static final int INITIAL_STRIPE_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+    
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+    
+    /**
+     * CONSTRUCTOR:
+     * This is the class constructor which is used to initialize the class during
+     * its instantiation.
+     */
+    public ChunkIndex() {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    /**
+     * This method adds the given chunk to the index if its fingerprint has not been
+     * seen before.
+     * 
+     * @param fingerprint - The fingerprint of the chunk as <code>long</code>
+     * @param length - The length of the chunk in bytes as <code>int</code>
+     * @param fileId - The id of the file the chunk was found in as <code>int</code>
+     * 
+     * @return Returns the id of the file which first contained the chunk as an <code>int</code>,
+     * or -1 if the chunk was not already in the index and has now been added.
+     */
+    public int putIfAbsent(long fingerprint, int length, int fileId) {
+        long key = (fingerprint == EMPTY ? 1L : fingerprint);
+        
+        return stripes[(int) (key >>> 58)].putIfAbsent(key, length, fileId);
+    }
+    
+    /**
+     * This method returns the number of unique chunks held in the index.
+     * 
+     * @return Returns the number of chunks as <code>long</code>
+     */
+    public long getChunkCount() {
+        long result = 0L;
+        for (Stripe s : stripes) {
+            result += s.getSize();
+        }
+        
+        return result;
+    }
+    
+    /**
+     * This method returns the total number of bytes covered by the unique
+     * chunks held in the index, which is the amount of storage needed if all
+     * of the scanned data were to be stored deduplicated at the chunk level.
+     * 
+     * @return Returns the number of bytes as <code>long</code>
+     */
+    public long getUniqueBytes() {
+        long result = 0L;
+        for (Stripe s : stripes) {
+            result += s.getBytes();
+        }
+        
+        return result;
+    }
+    
+    /**
+     * PRIVATE CLASS:
+     * A single lockable section of the {@link ChunkIndex} which uses linear probing
+     * over parallel primitive arrays.
+     */
+    private static class Stripe {
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+        private int[] owners = new int[INITIAL_STRIPE_CAPACITY];
+        private int size = 0;
+        private long bytes = 0L;
+        
+        synchronized int putIfAbsent(long key, int length, int fileId) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != EMPTY) { // Probe until a free slot or the key is found...
+                if (keys[slot] == key) { // Chunk has already been seen...
+                    
+                    return owners[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            
+            keys[slot] = key;
+            owners[slot] = fileId;
+            size++;
+            bytes += length;
+            
+            if (size > (keys.length >> 1) + (keys.length >> 2)) { // Load factor is above 75%...
+                grow();
+            }
+            
+            return -1;
+        }
+        
+        synchronized int getSize() {
+            
+            return size;
+        }
+        
+        synchronized long getBytes() {
+            
+            return bytes;
+        }
+        
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldOwners = owners;
+            
+            keys = new long[oldKeys.length << 1];
+            owners = new int[oldKeys.length << 1];
+            int mask = keys.length - 1;
+            
+            for (int i = 0; i < oldKeys.length; i++) { // Re-insert every used slot...
+                if (oldKeys[i] != EMPTY) {
+                    int slot = (int) oldKeys[i] & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    owners[slot] = oldOwners[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.firebirdcss.tool.duplicate_file_locator.data;
+
+/**
+ * This class is the Directory Claim object.
+ * It records that the files of a physical directory are being scanned through a given path,
+ * along with the real path of the directory and the type of scan it receives. A directory may
+ * be reached through many paths, such as through symbolic links, but its files are only ever
+ * indexed under the path which claimed it.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class DirectoryClaim {
+    private final String path;
+    private final String realPath;
+    private final ScanType scanType;
+    
+    /**
+     * CONSTRUCTOR:
+     * This is the class constructor which is used to initialize the class during
+     * its instantiation.
+     * 
+     * @param path - The path through which the directory was claimed as {@link String}
+     * @param realPath - The real path of the directory as {@link String}
+     * @param scanType - The type of scan the directory receives as {@link ScanType}
+     */
+    public DirectoryClaim(String path, String realPath, ScanType scanType) {
+        this.path = path;
+        this.realPath = realPath;
+        this.scanType = scanType;
+    }
+    
+    /**
+     * This method returns the path through which the directory was claimed.
+     * 
+     * @return Returns the path as {@link String}
+     */
+    public String getPath() {
+        
+        return path;
+    }
+    
+    /**
+     * This method returns the real path of the directory.
+     * 
+     * @return Returns the real path as {@link String}
+     */
+    public String getRealPath() {
+        
+        return realPath;
+    }
+    
+    /**
+     * This method returns the type of scan the directory receives.
+     * 
+     * @return Returns the {@link ScanType}
+     */
+    public ScanType getScanType() {
+        
+        return scanType;
+    }
+}
@@ -0,0 +1,102 @@
+package com.firebirdcss.tool.duplicate_file_locator.data;
+
+import java.util.ArrayList;
+
+/**
+ * This class is the Duplicate Group object.
+ * It holds the paths of every file found with a given hash along with the size those
+ * files share, such that the space wasted by the group is known without going back
+ * to the file system.
+ * <p>
+ * The paths are added to by many threads during a scan, so all access to them is
+ * synchronized on the group.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class DuplicateGroup {
+    private final String hash;
+    private final long fileSize;
+    private final ArrayList<String/*FilePath*/> paths = new ArrayList<>(1);
+    
+    /**
+     * CONSTRUCTOR:
+     * This is the class constructor which is used to initialize the class during
+     * its instantiation.
+     * 
+     * @param hash - The hash of the files in the group as {@link String}
+     * @param fileSize - The size of each file in the group as <code>long</code>
+     */
+    public DuplicateGroup(String hash, long fileSize) {
+        this.hash = hash;
+        this.fileSize = fileSize;
+    }
+    
+    /**
+     * This method adds the given path to the group if it is not already in the group.
+     * 
+     * @param path - The path to add as {@link String}
+     * 
+     * @return Returns a <code>boolean</code> true if the path was added, otherwise false.
+     */
+    public synchronized boolean addPath(String path) {
+        if (paths.contains(path)) { // Path is already known...
+            
+            return false;
+        }
+        
+        return paths.add(path);
+    }
+    
+    /**
+     * This method returns a copy of the paths in the group.
+     * 
+     * @return Returns an {@link ArrayList} of paths as {@link String}
+     */
+    public synchronized ArrayList<String/*FilePath*/> getPaths() {
+        
+        return new ArrayList<>(paths);
+    }
+    
+    /**
+     * This method returns the number of files in the group.
+     * 
+     * @return Returns the number of files as <code>int</code>
+     */
+    public synchronized int getCopies() {
+        
+        return paths.size();
+    }
+    
+    /**
+     * This method returns the space which would be freed by keeping only one file of the group.
+     * 
+     * @return Returns the number of bytes as <code>long</code>
+     */
+    public synchronized long getWastedBytes() {
+        
+        return fileSize * Math.max(0, paths.size() - 1);
+    }
+    
+    /**
+     * This method returns the hash of the files in the group.
+     * 
+     * @return Returns the hash as {@link String}
+     */
+    public String getHash() {
+        
+        return hash;
+    }
+    
+    /**
+     * This method returns the size of each file in the group.
+     * 
+     * @return Returns the size in bytes as <code>long</code>
+     */
+    public long getFileSize() {
+        
+        return fileSize;
+    }
+}
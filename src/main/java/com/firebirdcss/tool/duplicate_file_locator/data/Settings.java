@@ -49,4 +49,124 @@ public class Settings {
      *  is no point to looking at each of those patterns after the scan has completed.
      */
     public static final HashSet<String> postRunExemptPatterns = new HashSet<>();
+    
+    /**
+     * This is a {@link HashSet} of type {@link String} which is used to store the
+     * lower-case extensions, without a leading dot, of the only files which are to be
+     * scanned. When empty, files of any extension are scanned.
+     */
+    public static final HashSet<String> includeExtensions = new HashSet<>();
+    
+    /**
+     * This is a {@link HashSet} of type {@link String} which is used to store the
+     * lower-case extensions, without a leading dot, of files which are not to be scanned.
+     */
+    public static final HashSet<String> excludeExtensions = new HashSet<>();
+    
+    /**
+     * This is the smallest size in bytes, as a <code>long</code>, of a file which is to be scanned.
+     */
+    public static long minFileSize = 0L;
+    
+    /**
+     * This is the largest size in bytes, as a <code>long</code>, of a file which is to be scanned.
+     */
+    public static long maxFileSize = Long.MAX_VALUE;
+    
+    /**
+     * This is the time in milliseconds since the epoch, as a <code>long</code>, after which
+     * a file must have last been modified in order to be scanned.
+     */
+    public static long modifiedAfter = Long.MIN_VALUE;
+    
+    /**
+     * This is the time in milliseconds since the epoch, as a <code>long</code>, before which
+     * a file must have last been modified in order to be scanned.
+     */
+    public static long modifiedBefore = Long.MAX_VALUE;
+    
+    /**
+     * This is a <code>boolean</code> which indicates if files should also be split into
+     * content-defined chunks while they are hashed, so that a report of the data shared
+     * between files can be displayed once the scan has completed.
+     */
+    public static boolean chunkAnalysis = false;
+    
+    /**
+     * This is a <code>boolean</code> which indicates if the entries inside of zip based
+     * archives, such as jars, should be hashed and reported alongside regular files.
+     */
+    public static boolean scanArchives = false;
+    
+    /**
+     * This is the size in bytes, as a <code>long</code>, at or above which a file is hashed
+     * in parallel segments using a tree hash rather than being read by a single thread.
+     */
+    public static long treeHashThreshold = 1024L * 1024L * 1024L;
+    
+    /**
+     * This is a <code>boolean</code> which indicates if files should be hashed only after all
+     * directories have been listed, skipping files of a unique size and reading the rest in
+     * the order they are laid out on disk.
+     */
+    public static boolean orderedReads = false;
+    
+    /**
+     * This is the number of threads, as an <code>int</code>, used to read files when
+     * ordered reads are enabled.
+     */
+    public static int readThreads = 4;
+    
+    /**
+     * This is a <code>boolean</code> which indicates if the number of threads hashing files
+     * at the same time should be tuned to the measured throughput while the scan runs.
+     */
+    public static boolean adaptiveConcurrency = false;
+    
+    /**
+     * This is the fewest threads, as an <code>int</code>, that adaptive concurrency may allow to hash files.
+     */
+    public static int minHashThreads = 1;
+    
+    /**
+     * This is the most threads, as an <code>int</code>, that adaptive concurrency may allow to hash files.
+     */
+    public static int maxHashThreads = 64;
+    
+    /**
+     * This is the path of the file, as a {@link String}, to which the progress of the scan is
+     * periodically saved, or null if progress is not to be saved.
+     */
+    public static String checkpointFile = null;
+    
+    /**
+     * This is the number of seconds, as an <code>int</code>, between each save of the
+     * progress of the scan to the checkpoint file.
+     */
+    public static int checkpointInterval = 60;
+    
+    /**
+     * This is a <code>boolean</code> which indicates if the scan should continue from the
+     * progress saved in the checkpoint file rather than starting over.
+     */
+    public static boolean resume = false;
+    
+    /**
+     * This is a <code>boolean</code> which indicates if directories should be walked twice, first
+     * counting only file sizes and then hashing only the files whose size may be shared, such that
+     * memory is only used for the files which may have a duplicate.
+     */
+    public static boolean twoPass = false;
+    
+    /**
+     * This is the most memory in bytes, as a <code>long</code>, used to count file sizes during
+     * the first pass of a two pass scan.
+     */
+    public static long sketchSize = 16L * 1024L * 1024L;
+    
+    /**
+     * This is a <code>boolean</code> which indicates if the scan should run without asking the user
+     * anything, reporting statistics about the scan in place of the cleanup of its results.
+     */
+    public static boolean nonInteractive = false;
 }
@@ -0,0 +1,151 @@
+package com.firebirdcss.tool.duplicate_file_locator.data;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is the Size Sketch object.
+ * It is a counting Bloom filter of file sizes which is used to tell whether a size may have
+ * been seen more than once, without keeping the sizes or the files they belong to.
+ * <p>
+ * Each size is counted in three counters which are chosen by hashing the size.
+ * As all that matters is whether a size repeats, each counter takes only two bits and stops
+ * counting at two. A size is reported as repeated only when all of its counters have reached
+ * two, so a size seen more than once is never missed, while a size seen only once is reported
+ * as repeated only when other sizes happen to share all of its counters.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class SizeSketch {
+    private static final int HASH_COUNT = 3;
+    private static final int COUNTERS_PER_WORD = 32;
+    private static final long SATURATED = 2L;
+    
+    private final AtomicLongArray words;
+    private final long counterMask;
+    
+    /**
+     * CONSTRUCTOR:
+     * This is the class constructor which is used to initialize an empty sketch
+     * using at most the given amount of memory.
+     * 
+     * @param maxBytes - The most memory the counters may use, in bytes, as <code>long</code>
+     */
+    public SizeSketch(long maxBytes) {
+        this(new long[(int) Long.highestOneBit(Math.max(1L, Math.min(1L << 30, maxBytes / Long.BYTES)))]);
+    }
+    
+    /**
+     * CONSTRUCTOR:
+     * This is the class constructor which is used to initialize a sketch from the words
+     * of a previous sketch, as returned by {@link #getWords()}.
+     * 
+     * @param words - The counters packed into a <code>long</code> array whose length is a power of two
+     */
+    public SizeSketch(long[] words) {
+        this.words = new AtomicLongArray(words);
+        this.counterMask = (long) words.length * COUNTERS_PER_WORD - 1;
+    }
+    
+    /**
+     * This method counts the given size.
+     * 
+     * @param size - The size to count as <code>long</code>
+     */
+    public void add(long size) {
+        long hash = mix(size);
+        long step = (hash >>> 32) | 1L;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            increment((hash + i * step) & counterMask);
+        }
+    }
+    
+    /**
+     * This method is used to determine if the given size may have been counted more than once.
+     * 
+     * @param size - The size to check as <code>long</code>
+     * 
+     * @return Returns a <code>boolean</code> true if the size may repeat, or false if it certainly does not.
+     */
+    public boolean mayRepeat(long size) {
+        long hash = mix(size);
+        long step = (hash >>> 32) | 1L;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            if (counter((hash + i * step) & counterMask) < SATURATED) { // Size was counted at most once...
+                
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * This method returns a copy of the counters packed into words, such that the sketch
+     * can be saved and later recreated.
+     * 
+     * @return Returns the counters as a <code>long</code> array
+     */
+    public long[] getWords() {
+        long[] results = new long[words.length()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = words.get(i);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * PRIVATE METHOD:
+     * Adds one to the given counter unless it has already reached two.
+     * 
+     * @param index - The index of the counter as <code>long</code>
+     */
+    private void increment(long index) {
+        int word = (int) (index / COUNTERS_PER_WORD);
+        int shift = (int) (index % COUNTERS_PER_WORD) * 2;
+        while (true) {
+            long current = words.get(word);
+            if (((current >>> shift) & 0x3L) >= SATURATED) { // Counter has stopped counting...
+                
+                return;
+            }
+            if (words.compareAndSet(word, current, current + (1L << shift))) { // Counter was updated...
+                
+                return;
+            }
+        }
+    }
+    
+    /**
+     * PRIVATE METHOD:
+     * Returns the value of the given counter.
+     * 
+     * @param index - The index of the counter as <code>long</code>
+     * 
+     * @return Returns the value of the counter as <code>long</code>
+     */
+    private long counter(long index) {
+        
+        return (words.get((int) (index / COUNTERS_PER_WORD)) >>> ((int) (index % COUNTERS_PER_WORD) * 2)) & 0x3L;
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * Spreads the bits of the given size, such that nearby sizes land on unrelated counters.
+     * 
+     * @param size - The size to mix as <code>long</code>
+     * 
+     * @return Returns the mixed value as <code>long</code>
+     */
+    private static long mix(long size) {
+        long h = size * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 33);
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= (h >>> 33);
+        
+        return h;
+    }
+}
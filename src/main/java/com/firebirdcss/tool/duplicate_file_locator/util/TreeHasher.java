@@ -0,0 +1,309 @@
+package com.firebirdcss.tool.duplicate_file_locator.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
+
+/**
+ * This class is the Tree Hasher.
+ * Its job is to hash very large files using many cores at once. A file is divided into
+ * fixed-size segments which are read with positional {@link FileChannel} reads and hashed
+ * in parallel, then the digests of the segments are combined into the digest of the file.
+ * <p>
+ * Because the segment size never changes, the resulting hash is the same no matter how many
+ * threads performed the work, and the {@link TreeDigest} can produce the exact same hash from
+ * a stream which is read from beginning to end. All files of at least
+ * {@link Settings#treeHashThreshold} bytes are expected to be hashed this way, so that
+ * identical large files always receive identical hashes.
+ * 
+ * @author Scott Griffis
+ * <p>
+ * Date: 10/19/2026
+ *
+ */
+public class TreeHasher {
+    private TreeHasher() {} // Prevent instantiation
+    
+    /**
+     * The size of each segment which is hashed on its own, this must never change as
+     * doing so would change the hash of every large file.
+     */
+    public static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final ExecutorService segmentService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+        Thread t = new Thread(r, "tree-hasher");
+        t.setDaemon(true);
+        
+        return t;
+    });
+    private static final ThreadLocal<ByteBuffer> readBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE)); // <-- One per tree-hasher thread, as direct buffers are only freed by garbage collection...
+    
+    /**
+     * This method is used to determine if a file of the given size should be hashed
+     * using a tree hash rather than a plain MD5 hash.
+     * 
+     * @param size - The size of the file in bytes as <code>long</code>
+     * 
+     * @return Returns a <code>boolean</code> true if a tree hash should be used, otherwise false.
+     */
+    public static boolean useTreeHash(long size) {
+        
+        return size >= Settings.treeHashThreshold;
+    }
+    
+    /**
+     * This method returns a new {@link MessageDigest} appropriate for content of the
+     * given size, being a {@link TreeDigest} when the size is above the threshold and a
+     * plain MD5 digest otherwise. When the size is unknown an {@link UnsizedDigest} is returned,
+     * which picks between the two once all of the content has been fed to it. This allows content
+     * which must be read as a stream to be given the same hash as it would get from {@link #hashFile(File)}.
+     * 
+     * @param size - The size of the content in bytes as <code>long</code>, or -1 if unknown
+     * 
+     * @return Returns the digest as a {@link MessageDigest}
+     * 
+     * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+     */
+    public static MessageDigest newDigest(long size) throws NoSuchAlgorithmException {
+        if (size < 0) { // Size is only known once the content has been read...
+            
+            return new UnsizedDigest();
+        }
+        if (useTreeHash(size)) { // Content is large enough for a tree hash...
+            
+            return new TreeDigest();
+        }
+        
+        return MessageDigest.getInstance("MD5");
+    }
+    
+    /**
+     * This method hashes the given file by hashing its segments in parallel and then
+     * combining the segment digests.
+     * 
+     * @param file - The file to hash as {@link File}
+     * 
+     * @return Returns the file's hash as a {@link String}
+     * 
+     * @throws IOException Indicates there was a problem while reading the file.
+     * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+     */
+    public static String hashFile(File file) throws IOException, NoSuchAlgorithmException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);) {
+            long size = channel.size();
+            
+            /* Hash each of the segments in parallel */
+            List<Future<byte[]>> segments = new ArrayList<>();
+            for (long position = 0; position < size; position += SEGMENT_SIZE) { // Iterate the segments of the file...
+                long start = position;
+                long end = Math.min(size, position + SEGMENT_SIZE);
+                segments.add(segmentService.submit(() -> hashSegment(channel, start, end)));
+            }
+            
+            /* Combine the segment digests in order */
+            MessageDigest combined = MessageDigest.getInstance("MD5");
+            try {
+                for (Future<byte[]> f : segments) {
+                    combined.update(f.get());
+                }
+            } catch (InterruptedException e) {
+                segments.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                
+                throw new IOException("Interrupted while hashing file: " + file.getAbsolutePath(), e);
+            } catch (ExecutionException e) {
+                segments.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof IOException) {
+                    
+                    throw (IOException) e.getCause();
+                }
+                
+                throw new IOException("Failed to hash file: " + file.getAbsolutePath(), e.getCause());
+            }
+            combined.update(TreeDigest.sizeBytes(size));
+            
+            return Utilities.toHexString(combined.digest());
+        }
+    }
+    
+    /**
+     * PRIVATE STATIC METHOD:
+     * This method hashes a single segment of the file open on the given channel.
+     * 
+     * @param channel - The channel to read from as {@link FileChannel}
+     * @param start - The position of the first byte of the segment as <code>long</code>
+     * @param end - The position just after the last byte of the segment as <code>long</code>
+     * 
+     * @return Returns the digest of the segment as a <code>byte</code> array
+     * 
+     * @throws IOException Indicates there was a problem while reading the file.
+     * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+     */
+    private static byte[] hashSegment(FileChannel channel, long start, long end) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        ByteBuffer buffer = readBuffers.get();
+        
+        long position = start;
+        while (position < end) { // Read until the end of the segment...
+            buffer.clear();
+            buffer.limit((int) Math.min(READ_BUFFER_SIZE, end - position));
+            int count = channel.read(buffer, position);
+            if (count == -1) { // File was truncated while being read...
+                
+                throw new IOException("Unexpected end of file while hashing segment at position " + position);
+            }
+            position += count;
+            buffer.flip();
+            digest.update(buffer);
+        }
+        
+        return digest.digest();
+    }
+    
+    /**
+     * This class is the Tree Digest.
+     * It is a {@link MessageDigest} which produces the same hash as {@link TreeHasher#hashFile(File)}
+     * from bytes which are fed to it in order, so it can be used anywhere a file must be read as a stream.
+     */
+    public static class TreeDigest extends MessageDigest {
+        private final MessageDigest combined;
+        private final MessageDigest segment;
+        
+        private long segmentBytes = 0L;
+        private long totalBytes = 0L;
+        
+        /**
+         * CONSTRUCTOR:
+         * This is the class constructor which is used to initialize the class during
+         * its instantiation.
+         * 
+         * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+         */
+        public TreeDigest() throws NoSuchAlgorithmException {
+            super("MD5-TREE");
+            this.combined = MessageDigest.getInstance("MD5");
+            this.segment = MessageDigest.getInstance("MD5");
+        }
+        
+        @Override
+        protected void engineUpdate(byte input) {
+            engineUpdate(new byte[] {input}, 0, 1);
+        }
+        
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            while (len > 0) { // Feed the bytes while splitting them on segment boundaries...
+                int count = (int) Math.min(len, SEGMENT_SIZE - segmentBytes);
+                segment.update(input, offset, count);
+                segmentBytes += count;
+                totalBytes += count;
+                offset += count;
+                len -= count;
+                
+                if (segmentBytes == SEGMENT_SIZE) { // Segment is complete...
+                    combined.update(segment.digest());
+                    segmentBytes = 0L;
+                }
+            }
+        }
+        
+        @Override
+        protected byte[] engineDigest() {
+            if (segmentBytes > 0) { // There is a partial trailing segment...
+                combined.update(segment.digest());
+            }
+            combined.update(sizeBytes(totalBytes));
+            byte[] result = combined.digest();
+            engineReset();
+            
+            return result;
+        }
+        
+        @Override
+        protected void engineReset() {
+            combined.reset();
+            segment.reset();
+            segmentBytes = 0L;
+            totalBytes = 0L;
+        }
+        
+        /**
+         * PRIVATE STATIC METHOD:
+         * Encodes the given size as eight big-endian bytes to be included in the final digest.
+         * 
+         * @param size - The size as <code>long</code>
+         * 
+         * @return Returns the encoded size as a <code>byte</code> array
+         */
+        private static byte[] sizeBytes(long size) {
+            
+            return ByteBuffer.allocate(Long.BYTES).putLong(size).array();
+        }
+    }
+    
+    /**
+     * This class is the Unsized Digest.
+     * It is a {@link MessageDigest} for content whose size is not known until it has been read.
+     * The content is fed to both a plain MD5 digest and a {@link TreeDigest}, and whichever of
+     * the two suits the final size of the content produces the hash.
+     */
+    public static class UnsizedDigest extends MessageDigest {
+        private final MessageDigest plain;
+        private final TreeDigest tree;
+        
+        private long totalBytes = 0L;
+        
+        /**
+         * CONSTRUCTOR:
+         * This is the class constructor which is used to initialize the class during
+         * its instantiation.
+         * 
+         * @throws NoSuchAlgorithmException Indicates the JVM doesn't have the ability to perform a hash.
+         */
+        public UnsizedDigest() throws NoSuchAlgorithmException {
+            super("MD5-UNSIZED");
+            this.plain = MessageDigest.getInstance("MD5");
+            this.tree = new TreeDigest();
+        }
+        
+        @Override
+        protected void engineUpdate(byte input) {
+            engineUpdate(new byte[] {input}, 0, 1);
+        }
+        
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            plain.update(input, offset, len);
+            tree.update(input, offset, len);
+            totalBytes += len;
+        }
+        
+        @Override
+        protected byte[] engineDigest() {
+            byte[] result = (useTreeHash(totalBytes) ? tree.digest() : plain.digest());
+            engineReset();
+            
+            return result;
+        }
+        
+        @Override
+        protected void engineReset() {
+            plain.reset();
+            tree.reset();
+            totalBytes = 0L;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -16,6 +18,7 @@ import java.util.Scanner;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import com.firebirdcss.tool.duplicate_file_locator.ArchiveScanner;
 import com.firebirdcss.tool.duplicate_file_locator.data.Settings;
 
 /**
@@ -61,16 +64,48 @@ public class Utilities {
         byte[] hashBytes = digest.digest();
         
         /* Convert the hash bytes to a string */
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < hashBytes.length; i++) {
-            sb.append(Integer.toString((hashBytes[i] & 0xff) + 0x100, 16).substring(1));
-        }
-        
-        result = sb.toString();
+        result = toHexString(hashBytes);
         
         return result;
     }
     
+    /**
+     * This method converts the given bytes, such as those produced by a
+     * {@link MessageDigest}, into a lower-case hexadecimal {@link String}.
+     * 
+     * @param bytes - The bytes to convert as a <code>byte</code> array
+     * 
+     * @return Returns the hexadecimal representation of the bytes as a {@link String}
+     */
+    public static String toHexString(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (int i = 0; i < bytes.length; i++) {
+            sb.append(Integer.toString((bytes[i] & 0xff) + 0x100, 16).substring(1));
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * This method resolves the given path to the real path of what it refers to, such that
+     * symbolic links, relative paths and <code>..</code> elements are all removed. Where the
+     * path cannot be resolved, such as when it does not exist, it is made absolute and normalized instead.
+     * 
+     * @param path - The path to resolve as {@link String}
+     * 
+     * @return Returns the resolved path as a {@link String}
+     */
+    public static String toRealPath(String path) {
+        Path p = Path.of(path);
+        try {
+            
+            return p.toRealPath().toString();
+        } catch (IOException e) {
+            
+            return p.toAbsolutePath().normalize().toString();
+        }
+    }
+    
     /**
      * This method matches the given file path against the list of exclusion patterns
      * to see if the path is acceptable to be scanned.
@@ -111,6 +146,106 @@ public class Utilities {
         return true;
     }
     
+    /**
+     * This method checks the attributes of a file, which were read while listing its directory,
+     * against the size, modification time and extension filters in {@link Settings}, to see if
+     * the file is to be scanned.
+     * 
+     * @param name - The name of the file as {@link String}
+     * @param attrs - The attributes of the file as {@link BasicFileAttributes}
+     * 
+     * @return Returns a <code>boolean</code>, true if the file can be scanned and false if it shouldn't be.
+     */
+    public static boolean allowFile(String name, BasicFileAttributes attrs) {
+        long modified = attrs.lastModifiedTime().toMillis();
+        if (modified <= Settings.modifiedAfter || modified >= Settings.modifiedBefore) { // File is outside of the time range...
+            
+            return false;
+        }
+        
+        return allowEntry(name, attrs.size());
+    }
+    
+    /**
+     * This method checks the name and size of a file, such as an entry inside of an archive,
+     * against the size and extension filters in {@link Settings}, to see if it is to be scanned.
+     * 
+     * @param name - The name of the file as {@link String}
+     * @param size - The size of the file as <code>long</code>
+     * 
+     * @return Returns a <code>boolean</code>, true if the file can be scanned and false if it shouldn't be.
+     */
+    public static boolean allowEntry(String name, long size) {
+        if (size < Settings.minFileSize || size > Settings.maxFileSize) { // File is outside of the size range...
+            
+            return false;
+        }
+        
+        if (!Settings.includeExtensions.isEmpty() || !Settings.excludeExtensions.isEmpty()) { // Extensions are being filtered...
+            int dot = name.lastIndexOf('.');
+            String ext = (dot == -1 ? "" : name.substring(dot + 1).toLowerCase());
+            if (!Settings.includeExtensions.isEmpty() && !Settings.includeExtensions.contains(ext)) { // Extension is not included...
+                
+                return false;
+            }
+            if (Settings.excludeExtensions.contains(ext)) { // Extension is excluded...
+                
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * This method parses a size given by the user, which may be a number of bytes or a number
+     * followed by one of the suffixes K, M, G or T, such as <code>1M</code> for one mebibyte.
+     * 
+     * @param value - The size to parse as {@link String}
+     * 
+     * @return Returns the size in bytes as a <code>long</code>
+     * 
+     * @throws NumberFormatException Indicates the value is not a valid size.
+     */
+    public static long parseSize(String value) throws NumberFormatException {
+        String v = value.trim().toUpperCase();
+        long multiplier = 1L;
+        if (v.endsWith("B")) { // Allow sizes such as 10MB or 10B...
+            v = v.substring(0, v.length() - 1);
+        }
+        if (v.endsWith("K")) {
+            multiplier = 1024L;
+        } else if (v.endsWith("M")) {
+            multiplier = 1024L * 1024L;
+        } else if (v.endsWith("G")) {
+            multiplier = 1024L * 1024L * 1024L;
+        } else if (v.endsWith("T")) {
+            multiplier = 1024L * 1024L * 1024L * 1024L;
+        }
+        if (multiplier > 1L) {
+            v = v.substring(0, v.length() - 1);
+        }
+        
+        return Math.multiplyExact(Long.parseLong(v.trim()), multiplier);
+    }
+    
+    /**
+     * This method parses a comma separated list of file extensions given by the user, such as
+     * <code>mp4,.MKV</code>, into the given set as lower-case extensions without a leading dot.
+     * 
+     * @param value - The list of extensions as {@link String}
+     * @param extensions - The set to add the extensions to as a {@link Set} of {@link String}
+     */
+    public static void parseExtensions(String value, Set<String> extensions) {
+        for (String ext : value.split(",")) {
+            ext = ext.trim().toLowerCase();
+            if (ext.startsWith(".")) {
+                ext = ext.substring(1);
+            }
+            extensions.add(ext);
+        }
+    }
+    
     /**
      * This method's job is to delete all of the files referenced by
      * a given list of paths.
@@ -120,13 +255,29 @@ public class Utilities {
     public static void deleteFiles(List<String> toDelete) {
         for (String path : toDelete) { // Iterate the list of file paths to delete...
             File file = new File(path);
-            if (!file.delete()) { // File couldn't be deleted...
+            if (isArchiveEntryPath(path)) { // Path is inside of an archive...
+                System.out.println("\nERROR: Archive entries cannot be deleted individually: " + path);
+                shortPause();
+            } else if (!file.delete()) { // File couldn't be deleted...
                 System.out.println("\nERROR: File could not be deleted: " + path);
                 shortPause();
             }
         }
     }
     
+    /**
+     * This method is used to determine if the given path is the virtual path of
+     * an entry within an archive rather than the path of a real file.
+     * 
+     * @param path - The path to check as {@link String}
+     * 
+     * @return Returns a <code>boolean</code> true if the path refers to an archive entry, otherwise false.
+     */
+    public static boolean isArchiveEntryPath(String path) {
+        
+        return path.contains(ArchiveScanner.ENTRY_SEPARATOR) && !new File(path).exists();
+    }
+    
     /**
      * This method is used to perform a short pause 
      * for about 2 seconds in length.